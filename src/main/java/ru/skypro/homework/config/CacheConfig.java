@@ -0,0 +1,106 @@
+package ru.skypro.homework.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ru.skypro.homework.constants.CacheNames;
+import ru.skypro.homework.service.ImageService;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Конфигурация in-process кэшей на базе Caffeine. Каждый кэш ограничен по размеру и времени жизни
+ * записи и собирает статистику, которая публикуется в метриках {@code cache.*} через Actuator.
+ *
+ * <p>Менеджер кэшей транзакционный: вытеснение записи из кэша выполняется после фиксации
+ * транзакции, поэтому параллельный запрос не вернёт в кэш ещё не изменённые данные.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.ad-cards.max-size}") long adCardsMaxSize,
+            @Value("${app.cache.ad-cards.ttl}") Duration adCardsTtl,
+            @Value("${app.cache.authentications.max-size}") long authenticationsMaxSize,
+            @Value("${app.cache.authentications.ttl}") Duration authenticationsTtl,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> hotImagesCache) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(
+                List.of(
+                        caffeineCache(CacheNames.AD_CARDS, adCardsMaxSize, adCardsTtl),
+                        caffeineCache(
+                                CacheNames.AUTHENTICATIONS,
+                                authenticationsMaxSize,
+                                authenticationsTtl),
+                        new TransactionAwareCacheDecorator(
+                                new CaffeineCache(CacheNames.HOT_IMAGES, hotImagesCache))));
+        return cacheManager;
+    }
+
+    /**
+     * Кэш содержимого часто запрашиваемых картинок. Ограничен не числом записей, а суммарным
+     * размером картинок в байтах ({@code app.cache.hot-images.max-bytes}).
+     */
+    @Bean
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> hotImagesCache(
+            @Value("${app.cache.hot-images.max-bytes}") long maxBytes,
+            @Value("${app.cache.hot-images.ttl}") Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(
+                        (Object key, Object value) ->
+                                (int)
+                                        Math.min(
+                                                Integer.MAX_VALUE,
+                                                ((ImageService.ImageData) value)
+                                                        .getContentLength()))
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /** Публикует занятый кэшем картинок объём в байтах (метрика {@code cache.resident.bytes}). */
+    @Bean
+    public MeterBinder hotImagesResidentBytes(
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> hotImagesCache) {
+        return registry ->
+                Gauge.builder(
+                                "cache.resident.bytes",
+                                hotImagesCache,
+                                cache ->
+                                        cache.policy()
+                                                .eviction()
+                                                .map(eviction -> eviction.weightedSize().orElse(0L))
+                                                .orElse(0L))
+                        .tag("cache", CacheNames.HOT_IMAGES)
+                        .baseUnit(BaseUnits.BYTES)
+                        .register(registry);
+    }
+
+    private static Cache caffeineCache(String name, long maxSize, Duration ttl) {
+        return new TransactionAwareCacheDecorator(
+                new CaffeineCache(
+                        name,
+                        Caffeine.newBuilder()
+                                .maximumSize(maxSize)
+                                .expireAfterWrite(ttl)
+                                .recordStats()
+                                .build()));
+    }
+}
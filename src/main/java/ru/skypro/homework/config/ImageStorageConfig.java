@@ -0,0 +1,94 @@
+package ru.skypro.homework.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.service.ImageStorage;
+import ru.skypro.homework.service.impl.LocalImageStorage;
+import ru.skypro.homework.service.impl.S3ImageStorage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Выбор хранилища картинок по свойству {@code app.image.storage.type}: {@code local} (по
+ * умолчанию) – каталоги {@code app.image.ad-dir} и {@code app.image.avatar-dir}, {@code s3} –
+ * бакет S3-совместимого хранилища из свойств {@code app.image.storage.s3.*}.
+ */
+@Slf4j
+@Configuration
+public class ImageStorageConfig {
+
+    private static final String STORAGE_TYPE = "app.image.storage.type";
+
+    @Bean
+    @ConditionalOnProperty(name = STORAGE_TYPE, havingValue = "local", matchIfMissing = true)
+    public LocalImageStorage localImageStorage(
+            @Value("${app.image.ad-dir}") String adImageDir,
+            @Value("${app.image.avatar-dir}") String avatarDir) {
+        return new LocalImageStorage(
+                Map.of(
+                        ImageArea.ADS, Paths.get(adImageDir),
+                        ImageArea.AVATARS, Paths.get(avatarDir)));
+    }
+
+    /**
+     * Однократный перенос файлов, сохранённых до раскладки по подкаталогам. Включается свойством
+     * {@code app.image.storage.migrate-flat-files=true} и выполняется в фоновом потоке: пока он
+     * идёт, файлы доступны и по старому, и по новому пути.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.image.storage.migrate-flat-files", havingValue = "true")
+    public ApplicationRunner flatImageMigration(ObjectProvider<LocalImageStorage> localStorage) {
+        return args -> {
+            LocalImageStorage storage = localStorage.getIfAvailable();
+            if (storage == null) {
+                log.warn("Flat image migration skipped: local image storage is not in use");
+                return;
+            }
+            Thread migration =
+                    new Thread(
+                            () -> {
+                                for (ImageArea area : ImageArea.values()) {
+                                    try {
+                                        storage.migrateFlatFiles(area);
+                                    } catch (IOException e) {
+                                        log.error("Flat image migration failed for {}", area, e);
+                                    }
+                                }
+                            },
+                            "image-storage-migration");
+            migration.setDaemon(true);
+            migration.start();
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = STORAGE_TYPE, havingValue = "s3")
+    public ImageStorage s3ImageStorage(
+            @Value("${app.image.storage.s3.endpoint}") URI endpoint,
+            @Value("${app.image.storage.s3.bucket}") String bucket,
+            @Value("${app.image.storage.s3.region}") String region,
+            @Value("${app.image.storage.s3.access-key}") String accessKey,
+            @Value("${app.image.storage.s3.secret-key}") String secretKey,
+            @Value("${app.image.storage.s3.timeout}") Duration timeout,
+            @Value("${app.image.storage.s3.create-bucket}") boolean createBucket)
+            throws IOException {
+        S3ImageStorage storage =
+                new S3ImageStorage(endpoint, bucket, region, accessKey, secretKey, timeout);
+        if (createBucket) {
+            storage.createBucketIfMissing();
+        }
+        return storage;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.skypro.homework.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Включает выполнение методов с {@link Scheduled}. Периодические задачи приложения выполняет один
+ * общий планировщик Spring Boot, настраиваемый свойствами {@code spring.task.scheduling.*}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
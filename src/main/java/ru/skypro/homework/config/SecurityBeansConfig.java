@@ -3,12 +3,17 @@ package ru.skypro.homework.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import ru.skypro.homework.service.AuthenticationCache;
+import ru.skypro.homework.service.CachingAuthenticationProvider;
+
 /**
  * Конфигурация для предотвращения циклической зависимости в WebSecurityConfig Вынесены методы в
  * отдельный класс
@@ -21,16 +26,26 @@ public class SecurityBeansConfig {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Проверка логина и пароля по БД с BCrypt, перед которой стоит кэш успешных проверок. Бин
+     * единственный, поэтому Spring Security использует его и для HTTP Basic.
+     */
     @Bean
-    public AuthenticationManager authenticationManager(
-            HttpSecurity http,
+    public AuthenticationProvider authenticationProvider(
             UserDetailsService userDetailsService,
-            PasswordEncoder passwordEncoder)
-            throws Exception {
+            PasswordEncoder passwordEncoder,
+            AuthenticationCache authenticationCache) {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider();
+        daoProvider.setUserDetailsService(userDetailsService);
+        daoProvider.setPasswordEncoder(passwordEncoder);
+        return new CachingAuthenticationProvider(daoProvider, authenticationCache);
+    }
+
+    @Bean
+    public AuthenticationManager authenticationManager(
+            HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         return http.getSharedObject(AuthenticationManagerBuilder.class)
-                .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder)
-                .and()
+                .authenticationProvider(authenticationProvider)
                 .build();
     }
 }
@@ -7,13 +7,20 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import ru.skypro.homework.dto.auth.Role;
+import ru.skypro.homework.filter.BearerTokenAuthenticationFilter;
+import ru.skypro.homework.service.TokenService;
+
 import java.util.List;
 
 @Configuration
@@ -21,6 +28,7 @@ import java.util.List;
 public class WebSecurityConfig {
 
     private final UserDetailsService userDetailsService;
+    private final TokenService tokenService;
 
     private static final String[] AUTH_WHITELIST = {
             "/swagger-resources/**",
@@ -29,6 +37,7 @@ public class WebSecurityConfig {
             "/v3/api-docs/**",
             "/webjars/**",
             "/login",
+            "/refresh",
             "/register",
             "/ads-images/**",
             "/avatars/**"
@@ -46,14 +55,22 @@ public class WebSecurityConfig {
                                         .mvcMatchers(
                                                 HttpMethod.GET,
                                                 "/ads",
+                                                "/ads/search",
                                                 "/ads/{id}",
                                                 "/ads/{id}/comments")
                                         .permitAll()
+                                        // Метрики и состояние приложения – только администратору
+                                        .mvcMatchers("/actuator/**")
+                                        .hasRole(Role.ADMIN.name())
                                         // Всё остальное требует аутентификации
                                         .anyRequest()
                                         .authenticated())
                 .cors(withDefaults())
-                .httpBasic(withDefaults());
+                .httpBasic(withDefaults())
+                .addFilterBefore(
+                        new BearerTokenAuthenticationFilter(
+                                tokenService, new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)),
+                        BasicAuthenticationFilter.class);
         return http.build();
     }
 
@@ -0,0 +1,15 @@
+package ru.skypro.homework.constants;
+
+public final class CacheNames {
+
+    // ----- Объявления -----
+    public static final String AD_CARDS = "adCards";
+
+    // ----- Изображения -----
+    public static final String HOT_IMAGES = "hotImages";
+
+    // ----- Безопасность -----
+    public static final String AUTHENTICATIONS = "authentications";
+
+    private CacheNames() {}
+}
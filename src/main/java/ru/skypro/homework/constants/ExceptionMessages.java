@@ -17,6 +17,7 @@ public final class ExceptionMessages {
     public static final String USER_NOT_AUTHENTICATED = "Пользователь не авторизован";
     public static final String INVALID_CURRENT_PASSWORD = "Указан неверный текущий пароль";
     public static final String UNAUTHORIZED_ACCESS = "У пользователя нет прав на изменение %s";
+    public static final String INVALID_TOKEN = "Токен недействителен или истёк";
 
     // ----- Изображения -----
     public static final String IMAGE_NOT_FOUND = "Изображения %s не существует";
@@ -25,6 +26,11 @@ public final class ExceptionMessages {
     public static final String INVALID_IMAGE_FILE = "Загруженный файл пуст или отсутствует";
     public static final String INVALID_IMAGE_TYPE = "Неподдерживаемый тип файла: %s";
     public static final String INVALID_IMAGE_SIZE = "Размер файла превышает допустимый (максимум 5 Мб)";
+    public static final String INVALID_IMAGE_CONTENT = "Содержимое файла не является изображением";
+    public static final String INVALID_IMAGE_SIZE_PARAM = "Неизвестный размер изображения: %s";
+
+    // ----- Постраничная выборка -----
+    public static final String INVALID_CURSOR = "Некорректный курсор постраничной выборки: %s";
 
     // ----- Прочее -----
     public static final String USE_ACTUAL_REGISTER_METHOD =
@@ -0,0 +1,10 @@
+package ru.skypro.homework.constants;
+
+public final class PaginationConstants {
+
+    // ----- Постраничная выборка (keyset) -----
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private PaginationConstants() {}
+}
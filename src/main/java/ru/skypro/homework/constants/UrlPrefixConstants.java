@@ -3,6 +3,7 @@ package ru.skypro.homework.constants;
 public final class UrlPrefixConstants {
     public static final String URL_PREFIX_ADS_IMAGES = "/ads-images/";
     public static final String URL_PREFIX_AVATARS = "/avatars/";
+    public static final String URL_SUFFIX_THUMBNAIL = "?size=thumb";
 
     private UrlPrefixConstants() {}
 }
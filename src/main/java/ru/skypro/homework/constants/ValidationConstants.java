@@ -32,6 +32,8 @@ public final class ValidationConstants {
     public static final int AD_PRICE_MIN = 0;
     public static final int AD_PRICE_MAX = 10_000_000;
 
+    public static final int SEARCH_QUERY_MAX_SIZE = 200;
+
     // ----- Комментарии -----
     public static final int COMMENT_TEXT_MIN_SIZE = 8;
     public static final int COMMENT_TEXT_MAX_SIZE = 64;
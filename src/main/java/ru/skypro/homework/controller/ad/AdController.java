@@ -1,5 +1,15 @@
 package ru.skypro.homework.controller.ad;
 
+import static ru.skypro.homework.constants.PaginationConstants.DEFAULT_PAGE_SIZE;
+import static ru.skypro.homework.constants.PaginationConstants.MAX_PAGE_SIZE;
+import static ru.skypro.homework.constants.ValidationConstants.SEARCH_QUERY_MAX_SIZE;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -10,6 +20,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -26,14 +38,25 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import ru.skypro.homework.dto.ad.AdDto;
 import ru.skypro.homework.dto.ad.AdsDto;
 import ru.skypro.homework.dto.ad.CreateOrUpdateAdDto;
 import ru.skypro.homework.dto.ad.ExtendedAdDto;
+import ru.skypro.homework.dto.image.ImageDto;
 import ru.skypro.homework.service.AdService;
+import ru.skypro.homework.service.ImageService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
 @Slf4j
 @Validated
@@ -44,18 +67,91 @@ import javax.validation.Valid;
 public class AdController {
 
     private final AdService adService;
+    private final ImageService imageService;
+    private final ObjectMapper objectMapper;
 
-    @Operation(summary = "Получение всех объявлений")
+    @Operation(
+            summary = "Получение всех объявлений",
+            description =
+                    "Без параметров возвращает полный список. При передаче cursor или limit"
+                            + " возвращает страницу объявлений и курсор следующей страницы в поле"
+                            + " next")
     @ApiResponses(
             value = {
                 @ApiResponse(
                         responseCode = "200",
                         description = "Список объявлений получен",
-                        content = @Content(schema = @Schema(implementation = AdsDto.class)))
+                        content = @Content(schema = @Schema(implementation = AdsDto.class))),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Некорректный курсор или размер страницы")
             })
     @GetMapping
-    public ResponseEntity<AdsDto> getAllAds() {
-        return ResponseEntity.ok(adService.getAllAds());
+    public ResponseEntity<AdsDto> getAllAds(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(adService.getAllAds());
+        }
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        return ResponseEntity.ok(adService.getAdsPage(cursor, pageSize));
+    }
+
+    @Operation(
+            summary = "Поиск объявлений",
+            description =
+                    "Полнотекстовый поиск по заголовку и описанию. Результаты упорядочены по"
+                            + " релевантности; курсор следующей страницы возвращается в поле next")
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Найденные объявления",
+                        content = @Content(schema = @Schema(implementation = AdsDto.class))),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Пустой запрос, некорректный курсор или размер страницы")
+            })
+    @GetMapping("/search")
+    public ResponseEntity<AdsDto> searchAds(
+            @RequestParam @NotBlank @Size(max = SEARCH_QUERY_MAX_SIZE) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        return ResponseEntity.ok(adService.searchAds(q, cursor, pageSize));
+    }
+
+    @Operation(
+            summary = "Потоковая выгрузка всех объявлений",
+            description =
+                    "Возвращает все объявления в формате NDJSON (по одному JSON-объекту на строку)"
+                            + " по мере чтения из БД. Выбирается заголовком Accept:"
+                            + " application/x-ndjson")
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Поток объявлений",
+                        content =
+                                @Content(
+                                        mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                        schema = @Schema(implementation = AdDto.class)))
+            })
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAds() {
+        ObjectWriter adWriter =
+                objectMapper
+                        .writerFor(AdDto.class)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .withRootValueSeparator("\n");
+        StreamingResponseBody body =
+                outputStream -> {
+                    try (SequenceWriter lines = adWriter.writeValues(outputStream)) {
+                        adService.streamAllAds(ad -> writeLine(lines, ad));
+                    }
+                };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @Operation(summary = "Добавление объявления")
@@ -127,35 +223,85 @@ public class AdController {
         return ResponseEntity.ok(adService.updateAd(id, email, updateAd));
     }
 
-    @Operation(summary = "Получение объявлений авторизованного пользователя")
+    @Operation(
+            summary = "Получение объявлений авторизованного пользователя",
+            description =
+                    "Без параметров возвращает полный список. При передаче cursor или limit"
+                            + " возвращает страницу объявлений, общее число объявлений"
+                            + " пользователя в поле count и курсор следующей страницы в поле"
+                            + " next")
     @ApiResponses(
             value = {
                 @ApiResponse(
                         responseCode = "200",
                         description = "Список объявлений получен",
                         content = @Content(schema = @Schema(implementation = AdsDto.class))),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Некорректный курсор или размер страницы"),
                 @ApiResponse(responseCode = "401", description = "Пользователь не авторизован")
             })
     @GetMapping("/me")
-    public ResponseEntity<AdsDto> getAdsMe() {
-        return ResponseEntity.ok(adService.getAdsMe());
+    public ResponseEntity<AdsDto> getAdsMe(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(adService.getAdsMe());
+        }
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        return ResponseEntity.ok(adService.getAdsMePage(cursor, pageSize));
     }
 
-    @Operation(summary = "Обновление картинки объявления")
+    @Operation(
+            summary = "Обновление картинки объявления",
+            description =
+                    "Возвращает ссылку, размер и ETag новой картинки. Содержимое картинки в ответе"
+                            + " возвращается только при echo=true")
     @ApiResponses(
             value = {
-                @ApiResponse(responseCode = "200", description = "Изображение обновлено"),
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Изображение обновлено",
+                        content = @Content(schema = @Schema(implementation = ImageDto.class))),
                 @ApiResponse(responseCode = "401", description = "Пользователь не авторизован"),
                 @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
                 @ApiResponse(responseCode = "404", description = "Объявление не найдено")
             })
     @PatchMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<byte[]> updateImage(
+    public ResponseEntity<ImageDto> updateImage(
             @PathVariable Integer id,
             @RequestParam("image") MultipartFile image,
             Authentication authentication) {
         String email = authentication.getName();
-        byte[] updatedImage = adService.updateImage(id, email, image);
-        return ResponseEntity.ok(updatedImage);
+        return ResponseEntity.ok(adService.updateImage(id, email, image));
+    }
+
+    @Operation(
+            summary = "Обновление картинки объявления с возвратом её содержимого",
+            description = "Режим для старых клиентов: новая картинка отдаётся в теле ответа")
+    @PatchMapping(
+            value = "/{id}/image",
+            params = "echo=true",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Resource> updateImageWithEcho(
+            @PathVariable Integer id,
+            @RequestParam("image") MultipartFile image,
+            Authentication authentication) {
+        String email = authentication.getName();
+        ImageDto updated = adService.updateImage(id, email, image);
+        String filename = Paths.get(updated.getUrl()).getFileName().toString();
+        ImageService.ImageData imageData = imageService.loadAdImage(filename);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.ETAG, updated.getEtag())
+                .contentType(MediaType.parseMediaType(imageData.getContentType()))
+                .body(imageData.getResource());
+    }
+
+    private static void writeLine(SequenceWriter lines, AdDto ad) {
+        try {
+            lines.write(ad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -17,7 +17,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import ru.skypro.homework.dto.auth.LoginDto;
+import ru.skypro.homework.dto.auth.RefreshTokenDto;
 import ru.skypro.homework.dto.auth.RegisterDto;
+import ru.skypro.homework.dto.auth.TokenDto;
 import ru.skypro.homework.service.AuthService;
 
 import javax.validation.Valid;
@@ -34,19 +36,29 @@ public class AuthController {
     @Operation(summary = "Авторизация пользователя")
     @ApiResponses(
             value = {
-                @ApiResponse(
-                        responseCode = "200",
-                        description = "Успешная авторизация",
-                        content = @Content),
+                @ApiResponse(responseCode = "200", description = "Успешная авторизация"),
                 @ApiResponse(
                         responseCode = "401",
                         description = "Неверные учетные данные",
                         content = @Content)
             })
     @PostMapping("/login")
-    public ResponseEntity<Void> login(@Valid @RequestBody LoginDto loginDto) {
-        authService.login(loginDto.getUsername(), loginDto.getPassword());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<TokenDto> login(@Valid @RequestBody LoginDto loginDto) {
+        return ResponseEntity.ok(authService.login(loginDto.getUsername(), loginDto.getPassword()));
+    }
+
+    @Operation(summary = "Обновление пары токенов")
+    @ApiResponses(
+            value = {
+                @ApiResponse(responseCode = "200", description = "Выдана новая пара токенов"),
+                @ApiResponse(
+                        responseCode = "401",
+                        description = "Токен обновления недействителен или истёк",
+                        content = @Content)
+            })
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenDto> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+        return ResponseEntity.ok(authService.refresh(refreshTokenDto.getRefreshToken()));
     }
 
     @Operation(summary = "Регистрация пользователя")
@@ -1,5 +1,8 @@
 package ru.skypro.homework.controller.comment;
 
+import static ru.skypro.homework.constants.PaginationConstants.DEFAULT_PAGE_SIZE;
+import static ru.skypro.homework.constants.PaginationConstants.MAX_PAGE_SIZE;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -20,6 +23,8 @@ import ru.skypro.homework.dto.comment.CreateOrUpdateCommentDto;
 import ru.skypro.homework.service.CommentService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 
 @Slf4j
 @Validated
@@ -31,19 +36,34 @@ public class CommentController {
 
     private final CommentService commentService;
 
-    @Operation(summary = "Получение комментариев объявления")
+    @Operation(
+            summary = "Получение комментариев объявления",
+            description =
+                    "Без параметров возвращает все комментарии. При передаче cursor или limit"
+                            + " возвращает страницу комментариев (сначала новые) и курсор"
+                            + " следующей страницы в поле next")
     @ApiResponses(
             value = {
                 @ApiResponse(
                         responseCode = "200",
                         description = "Комментарии получены",
                         content = @Content(schema = @Schema(implementation = CommentsDto.class))),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Некорректный курсор или размер страницы"),
                 @ApiResponse(responseCode = "401", description = "Пользователь не авторизован"),
                 @ApiResponse(responseCode = "404", description = "Объявление не найдено")
             })
     @GetMapping("/{adId}/comments")
-    public ResponseEntity<CommentsDto> getComments(@PathVariable Integer adId) {
-        return ResponseEntity.ok(commentService.getComments(adId));
+    public ResponseEntity<CommentsDto> getComments(
+            @PathVariable Integer adId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(commentService.getComments(adId));
+        }
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        return ResponseEntity.ok(commentService.getCommentsPage(adId, cursor, pageSize));
     }
 
     @Operation(summary = "Добавление комментария к объявлению")
@@ -1,39 +1,107 @@
 package ru.skypro.homework.controller.image;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import ru.skypro.homework.dto.image.ImageSize;
 import ru.skypro.homework.service.ImageService;
 
+import java.time.Duration;
+
 @RestController
 @RequiredArgsConstructor
 @Tag(name = "Загрузка изображений")
 public class ImageController {
 
+    /** Картинки объявлений не меняются под тем же именем – кэшируем на год без перепроверки. */
+    private static final String AD_IMAGE_CACHE_CONTROL =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePublic().getHeaderValue()
+                    + ", immutable";
+
+    /**
+     * Оригинал вместо ещё не созданного варианта: клиент перепроверяет его, чтобы получить вариант,
+     * как только тот появится.
+     */
+    private static final String AD_IMAGE_FALLBACK_CACHE_CONTROL =
+            CacheControl.noCache().getHeaderValue();
+
+    /** Аватар перезаписывается под тем же именем – клиент обязан перепроверять его. */
+    private static final String AVATAR_CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+
     private final ImageService imageService;
 
     @Operation(summary = "Получение картинки объявления")
     @GetMapping("/ads-images/{filename}")
-    public ResponseEntity<byte[]> getAdImage(@PathVariable String filename) {
-        ImageService.ImageData imageData = imageService.loadAdImage(filename);
+    public ResponseEntity<Resource> getAdImage(
+            @PathVariable String filename,
+            @Parameter(description = "Размер: thumb, medium или original")
+                    @RequestParam(defaultValue = "original")
+                    String size,
+            ServletWebRequest request) {
+        ImageSize imageSize = ImageSize.fromValue(size);
+        // ETag варианта клиент получает только вместе с самим вариантом, а вариант под тем же
+        // именем не меняется – проверка не требует обращения к хранилищу
+        String eTag = imageService.adImageETag(imageService.variantFilename(filename, imageSize));
+        if (request.checkNotModified(eTag)) {
+            return notModified(request, AD_IMAGE_CACHE_CONTROL);
+        }
+        ImageService.AdImageVariant variant = imageService.loadAdImage(filename, imageSize);
+        String cacheControl = AD_IMAGE_CACHE_CONTROL;
+        if (variant.isFallback()) {
+            // Оригинал отдаётся со своим ETag (заменяет выставленный проверкой выше) и без
+            // долгого кэширования, иначе клиент хранил бы его год под адресом варианта
+            String originalETag = imageService.adImageETag(filename);
+            if (request.getResponse() != null) {
+                request.getResponse().setHeader(HttpHeaders.ETAG, originalETag);
+            }
+            if (request.checkNotModified(originalETag)) {
+                return notModified(request, AD_IMAGE_FALLBACK_CACHE_CONTROL);
+            }
+            cacheControl = AD_IMAGE_FALLBACK_CACHE_CONTROL;
+        }
+        ImageService.ImageData imageData = variant.getImageData();
         return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
                 .contentType(MediaType.parseMediaType(imageData.getContentType()))
-                .body(imageData.getContent());
+                .body(imageData.getResource());
     }
 
     @Operation(summary = "Получение аватара пользователя")
     @GetMapping("/avatars/{filename}")
-    public ResponseEntity<byte[]> getAvatar(@PathVariable String filename) {
+    public ResponseEntity<Resource> getAvatar(
+            @PathVariable String filename, ServletWebRequest request) {
         ImageService.ImageData imageData = imageService.loadAvatar(filename);
+        if (request.checkNotModified(imageData.getETag(), imageData.getLastModified())) {
+            return notModified(request, AVATAR_CACHE_CONTROL);
+        }
         return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, AVATAR_CACHE_CONTROL)
                 .contentType(MediaType.parseMediaType(imageData.getContentType()))
-                .body(imageData.getContent());
+                .body(imageData.getResource());
+    }
+
+    /**
+     * Завершает запрос ответом 304. Статус и валидаторы уже выставлены {@link
+     * ServletWebRequest#checkNotModified}, остаётся добавить Cache-Control.
+     */
+    private static ResponseEntity<Resource> notModified(
+            ServletWebRequest request, String cacheControl) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return null;
     }
 }
@@ -25,4 +25,7 @@ public class AdDto {
 
     @Schema(description = "Заголовок объявления", example = "Продам ноутбук")
     private String title;
+
+    @Schema(description = "Количество комментариев к объявлению", example = "3")
+    private Integer commentCount;
 }
@@ -1,5 +1,7 @@
 package ru.skypro.homework.dto.ad;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import lombok.Data;
@@ -10,9 +12,22 @@ import java.util.List;
 @Schema(description = "Обертка для списка объявлений")
 public class AdsDto {
 
-    @Schema(description = "Общее количество объявлений", example = "10")
+    @Schema(
+            description =
+                    "Общее количество объявлений выборки (для страницы своих объявлений – все"
+                            + " объявления пользователя). В ленте и поиске общее число не"
+                            + " считается, там это количество объявлений в ответе",
+            example = "10")
     private Integer count;
 
     @Schema(description = "Список объявлений")
     private List<AdDto> results;
+
+    @Schema(
+            description =
+                    "Курсор следующей страницы (только при постраничной выборке, отсутствует на"
+                            + " последней странице)",
+            nullable = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
 }
@@ -6,6 +6,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 import lombok.Data;
 
+import ru.skypro.homework.dto.image.ImageStatus;
+
 @Data
 @Schema(description = "Расширенная информация об объявлении")
 public class ExtendedAdDto {
@@ -31,6 +33,9 @@ public class ExtendedAdDto {
             nullable = true)
     private String image;
 
+    @Schema(description = "Состояние обработки картинки", example = "READY")
+    private ImageStatus imageStatus;
+
     @Schema(description = "Телефон автора объявления", example = PHONE_EXAMPLE)
     private String phone;
 
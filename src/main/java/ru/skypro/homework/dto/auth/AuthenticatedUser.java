@@ -0,0 +1,31 @@
+package ru.skypro.homework.dto.auth;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Аутентифицированный пользователь с идентификатором из БД. Используется как principal и при входе
+ * по паролю, и при входе по токену доступа, чтобы сервисы получали идентификатор текущего
+ * пользователя без загрузки {@link ru.skypro.homework.model.UsersDao}.
+ *
+ * <p>Равенство, как и у {@link User}, определяется по имени пользователя (email).
+ */
+public class AuthenticatedUser extends User {
+
+    private final Integer id;
+
+    public AuthenticatedUser(
+            Integer id,
+            String username,
+            String password,
+            Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+}
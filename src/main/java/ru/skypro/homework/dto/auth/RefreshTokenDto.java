@@ -0,0 +1,16 @@
+package ru.skypro.homework.dto.auth;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+@Schema(description = "DTO для обновления пары токенов")
+public class RefreshTokenDto {
+
+    @Schema(description = "Токен обновления, полученный при авторизации")
+    @NotBlank(message = "Токен обновления не может быть пустым")
+    private String refreshToken;
+}
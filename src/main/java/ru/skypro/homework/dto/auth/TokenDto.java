@@ -0,0 +1,26 @@
+package ru.skypro.homework.dto.auth;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Пара токенов, выданная при авторизации или обновлении")
+public class TokenDto {
+
+    @Schema(description = "Токен доступа для заголовка Authorization: Bearer")
+    private String accessToken;
+
+    @Schema(description = "Токен для получения новой пары через /refresh")
+    private String refreshToken;
+
+    @Schema(description = "Тип токена", example = "Bearer")
+    private String tokenType;
+
+    @Schema(description = "Время жизни токена доступа в секундах", example = "900")
+    private Long expiresIn;
+}
@@ -1,5 +1,7 @@
 package ru.skypro.homework.dto.comment;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import lombok.Data;
@@ -10,9 +12,17 @@ import java.util.List;
 @Schema(description = "Обертка для списка комментариев")
 public class CommentsDto {
 
-    @Schema(description = "Общее количество комментариев", example = "5")
+    @Schema(description = "Общее количество комментариев к объявлению", example = "5")
     private Integer count;
 
     @Schema(description = "Список комментариев")
     private List<CommentDto> results;
+
+    @Schema(
+            description =
+                    "Курсор следующей страницы (только при постраничной выборке, отсутствует на"
+                            + " последней странице)",
+            nullable = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
 }
@@ -0,0 +1,25 @@
+package ru.skypro.homework.dto.image;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import ru.skypro.homework.constants.UrlPrefixConstants;
+
+/**
+ * Область хранения картинок. Для каждой области хранилище держит отдельный каталог (локально) или
+ * префикс ключей (в S3).
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageArea {
+    /** Картинки объявлений и их уменьшенные варианты. */
+    ADS("ads-images", UrlPrefixConstants.URL_PREFIX_ADS_IMAGES),
+    /** Аватары пользователей. */
+    AVATARS("avatars", UrlPrefixConstants.URL_PREFIX_AVATARS);
+
+    /** Имя каталога или префикс ключей в хранилище. */
+    private final String prefix;
+
+    /** Префикс URL, по которому картинки области отдаются клиенту. */
+    private final String urlPrefix;
+}
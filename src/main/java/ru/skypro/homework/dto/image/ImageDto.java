@@ -0,0 +1,19 @@
+package ru.skypro.homework.dto.image;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import lombok.Data;
+
+@Data
+@Schema(description = "Сведения о сохранённой картинке")
+public class ImageDto {
+
+    @Schema(description = "Ссылка на картинку", example = "/ads-images/image.jpg")
+    private String url;
+
+    @Schema(description = "Размер файла в байтах", example = "102400")
+    private Long size;
+
+    @Schema(description = "ETag картинки для условных запросов", example = "\"image.jpg\"")
+    private String etag;
+}
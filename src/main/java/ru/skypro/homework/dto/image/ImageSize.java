@@ -0,0 +1,51 @@
+package ru.skypro.homework.dto.image;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import ru.skypro.homework.constants.ExceptionMessages;
+import ru.skypro.homework.exception.InvalidImageException;
+
+import java.util.Arrays;
+
+/**
+ * Варианты размера картинки объявления. Уменьшенные варианты создаются при загрузке и хранятся
+ * рядом с оригиналом под именем {@code <имя>_<суффикс>.<расширение>}.
+ */
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "Размер картинки объявления")
+public enum ImageSize {
+    /** Миниатюра для карточек в ленте. */
+    THUMB("thumb", 320),
+    /** Средний размер для страницы объявления. */
+    MEDIUM("medium", 800),
+    /** Исходный файл без изменений. */
+    ORIGINAL("original", 0);
+
+    /** Значение параметра {@code size} и суффикс имени файла. */
+    private final String value;
+
+    /** Максимальная длина большей стороны в пикселях; 0 – без изменений. */
+    private final int maxDimension;
+
+    /**
+     * Возвращает размер по значению параметра запроса.
+     *
+     * @param value значение параметра {@code size} (без учёта регистра)
+     * @throws InvalidImageException если размер неизвестен
+     */
+    public static ImageSize fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(size -> size.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(
+                        () ->
+                                new InvalidImageException(
+                                        String.format(
+                                                ExceptionMessages.INVALID_IMAGE_SIZE_PARAM,
+                                                value)));
+    }
+}
@@ -0,0 +1,17 @@
+package ru.skypro.homework.dto.image;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Состояние фоновой обработки картинки объявления (создания уменьшенных вариантов). Пока обработка
+ * не завершена, по ссылкам на варианты отдаётся оригинал.
+ */
+@Schema(description = "Состояние обработки картинки объявления")
+public enum ImageStatus {
+    /** Картинка сохранена, варианты ещё создаются. */
+    PENDING,
+    /** Обработка завершена. */
+    READY,
+    /** Обработка не удалась после всех попыток; отдаётся только оригинал. */
+    FAILED
+}
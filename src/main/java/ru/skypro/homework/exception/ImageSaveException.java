@@ -2,6 +2,6 @@ package ru.skypro.homework.exception;
 
 public class ImageSaveException extends RuntimeException {
     public ImageSaveException(String message, Throwable cause) {
-        super(message);
+        super(message, cause);
     }
 }
@@ -0,0 +1,79 @@
+package ru.skypro.homework.filter;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import ru.skypro.homework.dto.auth.AuthenticatedUser;
+import ru.skypro.homework.exception.InvalidTokenException;
+import ru.skypro.homework.service.TokenService;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Аутентификация по заголовку {@code Authorization: Bearer <token>}. Токен проверяется только по
+ * подписи и сроку действия через {@link TokenService}, без обращения к БД и BCrypt. Principal –
+ * {@link AuthenticatedUser} с идентификатором пользователя из токена.
+ *
+ * <p>Запросы без токена пропускаются дальше без изменений (например, к HTTP Basic).
+ * Недействительный токен завершает запрос через {@link AuthenticationEntryPoint} со статусом 401.
+ */
+@RequiredArgsConstructor
+public class BearerTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = TokenService.TOKEN_TYPE + " ";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final TokenService tokenService;
+    private final AuthenticationEntryPoint authenticationEntryPoint;
+    private final WebAuthenticationDetailsSource detailsSource =
+            new WebAuthenticationDetailsSource();
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null
+                || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        TokenService.Claims claims;
+        try {
+            claims = tokenService.parseAccessToken(header.substring(BEARER_PREFIX.length()).trim());
+        } catch (InvalidTokenException e) {
+            SecurityContextHolder.clearContext();
+            authenticationEntryPoint.commence(request, response, e);
+            return;
+        }
+
+        List<GrantedAuthority> authorities =
+                List.of(new SimpleGrantedAuthority(ROLE_PREFIX + claims.getRole()));
+        AuthenticatedUser principal =
+                new AuthenticatedUser(claims.getUserId(), claims.getUsername(), "", authorities);
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        authentication.setDetails(detailsSource.buildDetails(request));
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+
+        filterChain.doFilter(request, response);
+    }
+}
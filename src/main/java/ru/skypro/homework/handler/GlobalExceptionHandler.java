@@ -20,6 +20,7 @@ import ru.skypro.homework.exception.AdNotFoundException;
 import ru.skypro.homework.exception.CommentNotFoundException;
 import ru.skypro.homework.exception.ImageNotFoundException;
 import ru.skypro.homework.exception.ImageReadException;
+import ru.skypro.homework.exception.InvalidCursorException;
 import ru.skypro.homework.exception.InvalidCurrentPasswordException;
 import ru.skypro.homework.exception.InvalidImageException;
 import ru.skypro.homework.exception.UnauthorizedAccessException;
@@ -153,6 +154,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(e.getMessage());
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<?> handleInvalidCursor(InvalidCursorException e) {
+        log.error("Invalid cursor: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
     @Data
     @AllArgsConstructor
     @JsonInclude(JsonInclude.Include.NON_NULL)
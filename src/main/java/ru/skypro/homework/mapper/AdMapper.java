@@ -4,20 +4,28 @@ import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 
 import ru.skypro.homework.config.MapStructConfig;
+import ru.skypro.homework.constants.UrlPrefixConstants;
 import ru.skypro.homework.dto.ad.AdDto;
 import ru.skypro.homework.dto.ad.CreateOrUpdateAdDto;
 import ru.skypro.homework.dto.ad.ExtendedAdDto;
 import ru.skypro.homework.model.AdsDao;
+import ru.skypro.homework.repository.projection.AdSummary;
 
 @Mapper(config = MapStructConfig.class)
 public interface AdMapper {
 
     @Mapping(source = "author.id", target = "author")
+    @Mapping(source = "image", target = "image", qualifiedByName = "thumbnailUrl")
     AdDto toAdDto(AdsDao entity);
 
+    @Mapping(source = "authorId", target = "author")
+    @Mapping(source = "image", target = "image", qualifiedByName = "thumbnailUrl")
+    AdDto toAdDto(AdSummary summary);
+
     @Mapping(source = "author.firstName", target = "authorFirstName")
     @Mapping(source = "author.lastName", target = "authorLastName")
     @Mapping(source = "author.email", target = "email")
@@ -26,6 +34,8 @@ public interface AdMapper {
 
     @Mapping(target = "pk", ignore = true)
     @Mapping(target = "image", ignore = true)
+    @Mapping(target = "imageStatus", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
     @Mapping(target = "author", ignore = true)
     @Mapping(target = "commentsDaos", ignore = true)
     AdsDao toAdEntity(CreateOrUpdateAdDto dto);
@@ -33,7 +43,15 @@ public interface AdMapper {
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "pk", ignore = true)
     @Mapping(target = "image", ignore = true)
+    @Mapping(target = "imageStatus", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
     @Mapping(target = "author", ignore = true)
     @Mapping(target = "commentsDaos", ignore = true)
     void updateAdFromDto(CreateOrUpdateAdDto dto, @MappingTarget AdsDao entity);
+
+    /** Карточки в ленте ссылаются на миниатюру, а не на исходный файл. */
+    @Named("thumbnailUrl")
+    default String thumbnailUrl(String image) {
+        return image == null ? null : image + UrlPrefixConstants.URL_SUFFIX_THUMBNAIL;
+    }
 }
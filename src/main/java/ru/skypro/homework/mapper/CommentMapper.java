@@ -11,6 +11,7 @@ import ru.skypro.homework.config.MapStructConfig;
 import ru.skypro.homework.dto.comment.CommentDto;
 import ru.skypro.homework.dto.comment.CreateOrUpdateCommentDto;
 import ru.skypro.homework.model.CommentsDao;
+import ru.skypro.homework.repository.projection.CommentSummary;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -28,6 +29,13 @@ public interface CommentMapper {
             qualifiedByName = "localDateTimeToEpochMillis")
     CommentDto toCommentDto(CommentsDao entity);
 
+    @Mapping(source = "authorId", target = "author")
+    @Mapping(
+            source = "createdAt",
+            target = "createdAt",
+            qualifiedByName = "localDateTimeToEpochMillis")
+    CommentDto toCommentDto(CommentSummary summary);
+
     @Mapping(target = "pk", ignore = true)
     @Mapping(target = "createdAt", expression = "java(java.time.LocalDateTime.now())")
     @Mapping(target = "author", ignore = true)
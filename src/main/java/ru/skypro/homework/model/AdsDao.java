@@ -5,12 +5,16 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import ru.skypro.homework.dto.image.ImageStatus;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -47,6 +51,17 @@ public class AdsDao {
     @Column(name = "image", length = MAX_IMAGE_PATH_LENGTH)
     private String image;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "image_status", nullable = false, length = 10)
+    private ImageStatus imageStatus = ImageStatus.READY;
+
+    /**
+     * Число комментариев. Изменяется только запросами {@code AdRepository} на уровне строки,
+     * поэтому не записывается при сохранении сущности и не затирает параллельные изменения.
+     */
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    private int commentCount;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private UsersDao author;
@@ -13,6 +13,7 @@ import java.util.List;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
@@ -24,6 +25,7 @@ import javax.persistence.Table;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UsersDaoListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
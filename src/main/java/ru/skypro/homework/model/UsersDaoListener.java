@@ -0,0 +1,26 @@
+package ru.skypro.homework.model;
+
+import lombok.RequiredArgsConstructor;
+
+import ru.skypro.homework.service.AuthenticationCache;
+
+import javax.persistence.PostRemove;
+
+/**
+ * Слушатель жизненного цикла {@link UsersDao}. Удаляет запись пользователя из {@link
+ * AuthenticationCache} при любом удалении сущности, в том числе массовом через репозиторий, чтобы
+ * новый пользователь с тем же email не прошёл проверку по старой записи.
+ *
+ * <p>Экземпляр создаётся Hibernate через контейнер бинов Spring, поэтому зависимости внедряются
+ * через конструктор.
+ */
+@RequiredArgsConstructor
+public class UsersDaoListener {
+
+    private final AuthenticationCache authenticationCache;
+
+    @PostRemove
+    public void onRemove(UsersDao user) {
+        authenticationCache.evict(user.getEmail());
+    }
+}
@@ -1,25 +1,50 @@
 package ru.skypro.homework.repository;
 
-import org.springframework.data.domain.Page;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import ru.skypro.homework.dto.image.ImageStatus;
 import ru.skypro.homework.model.AdsDao;
+import ru.skypro.homework.repository.projection.AdOwnership;
+import ru.skypro.homework.repository.projection.AdSearchResult;
+import ru.skypro.homework.repository.projection.AdSummary;
+import ru.skypro.homework.repository.projection.PendingImage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 @Repository
 public interface AdRepository extends JpaRepository<AdsDao, Integer> {
 
+    String AD_SUMMARY_SELECT =
+            "select a.pk as pk, a.title as title, a.price as price, a.image as image,"
+                    + " a.author.id as authorId, a.commentCount as commentCount from AdsDao a ";
+
     /**
-     * Получение объявлений конкретного пользователя (автора) с пагинацией.
-     *
-     * @param authorId идентификатор автора (поле user_id в таблице ads)
-     * @param pageable параметры пагинации
-     * @return страница объявлений пользователя с пагинацией
+     * Поиск по сгенерированному столбцу {@code search_vector} (GIN-индекс). Запрос пользователя
+     * разбирается {@code websearch_to_tsquery}, поэтому допускаются кавычки, {@code or} и минус.
      */
-    Page<AdsDao> findByAuthorId(Integer authorId, Pageable pageable);
+    String AD_SEARCH_SELECT =
+            "SELECT a.pk AS pk, a.title AS title, a.price AS price, a.image AS image,"
+                    + " a.user_id AS \"authorId\", a.comment_count AS \"commentCount\","
+                    + " ts_rank(a.search_vector, q.query) AS rank"
+                    + " FROM ads a, websearch_to_tsquery('russian', :query) AS q(query)"
+                    + " WHERE a.search_vector @@ q.query ";
+
+    String AD_SEARCH_ORDER = " ORDER BY rank DESC, a.pk DESC";
 
     /**
      * Получение объявлений конкретного пользователя (автора) без пагинации
@@ -36,4 +61,238 @@ public interface AdRepository extends JpaRepository<AdsDao, Integer> {
      * @return количество объявлений
      */
     long countByAuthorId(Integer authorId);
+
+    /**
+     * Получение идентификаторов объявлений пользователя, например, для точечной инвалидации кэша.
+     *
+     * @param authorId идентификатор автора
+     * @return идентификаторы объявлений автора
+     */
+    @Query("select a.pk from AdsDao a where a.author.id = :authorId")
+    List<Integer> findPksByAuthorId(@Param("authorId") Integer authorId);
+
+    /**
+     * Обновление состояния обработки картинки, если объявление всё ещё использует эту картинку.
+     * Выполняется в отдельной транзакции, так как вызывается из фоновой очереди и из {@code
+     * afterCommit} уже завершённой транзакции.
+     *
+     * @param pk идентификатор объявления
+     * @param image путь к обработанной картинке
+     * @param status новое состояние
+     * @return число обновлённых строк (0, если картинку заменили или объявление удалено)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update AdsDao a set a.imageStatus = :status where a.pk = :pk and a.image = :image")
+    int updateImageStatus(
+            @Param("pk") Integer pk,
+            @Param("image") String image,
+            @Param("status") ImageStatus status);
+
+    /**
+     * Получение объявлений с картинкой в заданном состоянии, например, необработанных картинок
+     * для повторной постановки в очередь.
+     *
+     * @param status состояние обработки картинки
+     * @param pageable ограничение числа объявлений
+     * @return проекции объявлений в порядке возрастания идентификатора
+     */
+    @Query(
+            "select a.pk as pk, a.image as image from AdsDao a"
+                    + " where a.imageStatus = :status order by a.pk")
+    List<PendingImage> findImagesByStatus(
+            @Param("status") ImageStatus status, Pageable pageable);
+
+    // ---------- Удаление ----------
+
+    /**
+     * Получение автора и картинки объявления для проверки прав перед удалением.
+     *
+     * @param pk идентификатор объявления
+     * @return проекция объявления или пустой результат, если объявления нет
+     */
+    @Query("select a.author.id as authorId, a.image as image from AdsDao a where a.pk = :pk")
+    Optional<AdOwnership> findOwnershipByPk(@Param("pk") Integer pk);
+
+    /**
+     * Удаление объявления одним запросом {@code DELETE}. Комментарии удаляет СУБД по {@code ON
+     * DELETE CASCADE} внешнего ключа {@code fk_comments_ad}: в отличие от {@code delete(entity)},
+     * Hibernate не загружает комментарии и не удаляет их по одному.
+     *
+     * @param pk идентификатор объявления
+     * @return число удалённых строк (0, если объявление уже удалено)
+     */
+    @Modifying
+    @Query("delete from AdsDao a where a.pk = :pk")
+    int deleteAdByPk(@Param("pk") Integer pk);
+
+    // ---------- Счётчик комментариев ----------
+
+    /**
+     * Число комментариев объявления из счётчика {@code ads.comment_count} без подсчёта строк
+     * {@code comments}.
+     *
+     * @param pk идентификатор объявления
+     * @return значение счётчика или пустой Optional, если объявления нет
+     */
+    @Query("select a.commentCount from AdsDao a where a.pk = :pk")
+    Optional<Integer> findCommentCountByPk(@Param("pk") Integer pk);
+
+    /**
+     * Атомарное изменение счётчика комментариев объявления. Вызывается в транзакции, которая
+     * добавляет или удаляет комментарий, после изменения таблицы {@code comments}.
+     *
+     * @param pk идентификатор объявления
+     * @param delta изменение счётчика (1 при добавлении, -1 при удалении)
+     * @return число обновлённых строк (0, если объявление удалено)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(
+            value = "UPDATE ads SET comment_count = comment_count + :delta WHERE pk = :pk",
+            nativeQuery = true)
+    int addToCommentCount(@Param("pk") Integer pk, @Param("delta") int delta);
+
+    /**
+     * Наибольший идентификатор объявления, граница обхода при сверке счётчиков.
+     *
+     * @return наибольший идентификатор или null, если объявлений нет
+     */
+    @Query("select max(a.pk) from AdsDao a")
+    Integer findMaxPk();
+
+    /**
+     * Блокировка строк объявлений диапазона до конца транзакции. После блокировки счётчики этих
+     * объявлений не меняются параллельно, а завершённые до неё изменения видны следующему запросу.
+     *
+     * @param fromPk нижняя граница диапазона (не включая)
+     * @param toPk верхняя граница диапазона (включая)
+     * @return идентификаторы заблокированных объявлений
+     */
+    @Query(
+            value = "SELECT pk FROM ads WHERE pk > :fromPk AND pk <= :toPk FOR UPDATE",
+            nativeQuery = true)
+    List<Integer> lockPkRange(@Param("fromPk") int fromPk, @Param("toPk") int toPk);
+
+    /**
+     * Исправление счётчиков комментариев диапазона объявлений по таблице {@code comments}.
+     * Строки диапазона должны быть заблокированы {@link #lockPkRange(int, int)} в той же
+     * транзакции.
+     *
+     * @param fromPk нижняя граница диапазона (не включая)
+     * @param toPk верхняя граница диапазона (включая)
+     * @return число исправленных объявлений
+     */
+    @Modifying
+    @Query(
+            value =
+                    "UPDATE ads a SET comment_count = x.cnt"
+                            + " FROM (SELECT ad.pk, COUNT(c.pk) AS cnt FROM ads ad"
+                            + " LEFT JOIN comments c ON c.ad_id = ad.pk"
+                            + " WHERE ad.pk > :fromPk AND ad.pk <= :toPk GROUP BY ad.pk) x"
+                            + " WHERE a.pk = x.pk AND a.comment_count <> x.cnt",
+            nativeQuery = true)
+    int reconcileCommentCounts(@Param("fromPk") int fromPk, @Param("toPk") int toPk);
+
+    /**
+     * Получение путей к картинкам из списка, на которые ссылается хотя бы одно объявление.
+     *
+     * @param images пути к картинкам (например, "/ads-images/file.jpg")
+     * @return пути из списка, используемые объявлениями
+     */
+    @Query("select distinct a.image from AdsDao a where a.image in :images")
+    List<String> findImagesIn(@Param("images") Collection<String> images);
+
+    // ---------- Проекции для списков (без загрузки сущностей) ----------
+
+    /**
+     * Получение всех объявлений в виде проекций {@link AdSummary}.
+     *
+     * @return список проекций в порядке возрастания идентификатора
+     */
+    @Query(AD_SUMMARY_SELECT + "order by a.pk")
+    List<AdSummary> findAllSummaries();
+
+    /**
+     * Получение объявлений автора в виде проекций {@link AdSummary}.
+     *
+     * @param authorId идентификатор автора
+     * @return список проекций в порядке возрастания идентификатора
+     */
+    @Query(AD_SUMMARY_SELECT + "where a.author.id = :authorId order by a.pk")
+    List<AdSummary> findSummariesByAuthorId(@Param("authorId") Integer authorId);
+
+    /**
+     * Получение страницы объявлений, следующих за указанным идентификатором (keyset-пагинация).
+     * Выборка идёт по первичному ключу без OFFSET, поэтому время ответа не зависит от глубины
+     * страницы.
+     *
+     * @param afterPk идентификатор последнего объявления предыдущей страницы (0 для первой
+     *     страницы)
+     * @param pageable ограничение размера выборки (номер страницы всегда 0)
+     * @return проекции объявлений с идентификатором больше {@code afterPk} в порядке возрастания
+     */
+    @Query(AD_SUMMARY_SELECT + "where a.pk > :afterPk order by a.pk")
+    List<AdSummary> findSummariesAfter(@Param("afterPk") Integer afterPk, Pageable pageable);
+
+    /**
+     * Страница объявлений автора после объявления с указанным идентификатором (keyset-пагинация).
+     * Диапазон читается из индекса {@code idx_ads_user_id_pk} без сортировки.
+     *
+     * @param authorId идентификатор автора
+     * @param afterPk идентификатор последнего объявления предыдущей страницы (0 для первой)
+     * @param pageable ограничение размера выборки (номер страницы всегда 0)
+     * @return проекции объявлений автора
+     */
+    @Query(AD_SUMMARY_SELECT + "where a.author.id = :authorId and a.pk > :afterPk order by a.pk")
+    List<AdSummary> findSummariesByAuthorIdAfter(
+            @Param("authorId") Integer authorId,
+            @Param("afterPk") Integer afterPk,
+            Pageable pageable);
+
+    /**
+     * Первая страница полнотекстового поиска: объявления в порядке убывания релевантности, при
+     * равной релевантности – сначала новые.
+     *
+     * @param query поисковый запрос
+     * @param pageable ограничение размера выборки (номер страницы всегда 0)
+     * @return найденные объявления с релевантностью
+     */
+    @Query(value = AD_SEARCH_SELECT + AD_SEARCH_ORDER, nativeQuery = true)
+    List<AdSearchResult> search(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Следующая страница полнотекстового поиска после объявления с указанными релевантностью и
+     * идентификатором (keyset-пагинация по паре {@code (rank, pk)}).
+     *
+     * @param query поисковый запрос
+     * @param afterRank релевантность последнего объявления предыдущей страницы
+     * @param afterPk идентификатор последнего объявления предыдущей страницы
+     * @param pageable ограничение размера выборки (номер страницы всегда 0)
+     * @return найденные объявления с релевантностью
+     */
+    @Query(
+            value =
+                    "SELECT * FROM ("
+                            + AD_SEARCH_SELECT
+                            + ") a WHERE a.rank < CAST(:afterRank AS real)"
+                            + " OR (a.rank = CAST(:afterRank AS real) AND a.pk < :afterPk)"
+                            + AD_SEARCH_ORDER,
+            nativeQuery = true)
+    List<AdSearchResult> searchAfter(
+            @Param("query") String query,
+            @Param("afterRank") float afterRank,
+            @Param("afterPk") Integer afterPk,
+            Pageable pageable);
+
+    /**
+     * Потоковое чтение всех объявлений в порядке возрастания идентификатора. Строки читаются с
+     * сервера порциями через курсор JDBC, а не загружаются в память целиком.
+     *
+     * <p>Поток должен быть закрыт вызывающим кодом и использоваться внутри транзакции.
+     *
+     * @return поток проекций объявлений
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(AD_SUMMARY_SELECT + "order by a.pk")
+    Stream<AdSummary> streamAllSummaries();
 }
@@ -1,12 +1,16 @@
 package ru.skypro.homework.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ru.skypro.homework.model.CommentsDao;
+import ru.skypro.homework.repository.projection.CommentSummary;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,20 +21,25 @@ public interface CommentRepository extends JpaRepository<CommentsDao, Integer> {
 
     /**
      * Получение всех комментариев к объявлению, отсортированных по дате создания (сначала новые).
-     * Без пагинации – возвращает полный список, например, для экспорта.
+     * Без пагинации – возвращает полный список, например, для экспорта. Автор загружается тем же
+     * запросом (fetch join), чтобы обращение к его полям не порождало отдельный SELECT на каждый
+     * комментарий.
      *
      * @param adPk идентификатор объявления (ad.pk)
      * @return список комментариев
      */
+    @EntityGraph(attributePaths = "author")
     List<CommentsDao> findByAdPkOrderByCreatedAtDesc(Integer adPk);
 
     /**
-     * Поиск комментария по его идентификатору и идентификатору объявления.
+     * Поиск комментария по его идентификатору и идентификатору объявления. Автор загружается тем
+     * же запросом (fetch join).
      *
      * @param pk идентификатор комментария (comment.pk)
      * @param adPk идентификатор объявления (ad.pk)
      * @return Optional с комментарием или пустой Optional
      */
+    @EntityGraph(attributePaths = "author")
     Optional<CommentsDao> findByPkAndAdPk(Integer pk, Integer adPk);
 
     /**
@@ -42,17 +51,63 @@ public interface CommentRepository extends JpaRepository<CommentsDao, Integer> {
      */
     Optional<CommentsDao> findByPkAndAuthorId(Integer pk, Integer authorId);
 
+    /**
+     * Получение комментариев к объявлению в виде проекций {@link CommentSummary} (сначала новые).
+     * Данные автора читаются тем же запросом через соединение с таблицей {@code users}.
+     *
+     * @param adPk идентификатор объявления (ad.pk)
+     * @return список проекций комментариев
+     */
+    @Query(
+            "select c.pk as pk, c.text as text, c.createdAt as createdAt, u.id as authorId,"
+                    + " u.image as authorImage, u.firstName as authorFirstName"
+                    + " from CommentsDao c join c.author u"
+                    + " where c.ad.pk = :adPk order by c.createdAt desc, c.pk desc")
+    List<CommentSummary> findSummariesByAdPk(@Param("adPk") Integer adPk);
+
     // ---------- Методы с пагинацией ----------
 
     /**
-     * Получение комментариев к объявлению с пагинацией и сортировкой по дате создания (новые
-     * первыми).
+     * Первая страница комментариев к объявлению (сначала новые). Порядок совпадает с индексом
+     * {@code idx_comments_ad_id_created_at}, поэтому строки читаются из индекса без сортировки.
+     *
+     * @param adPk идентификатор объявления (ad.pk)
+     * @param pageable ограничение размера выборки (номер страницы всегда 0)
+     * @return проекции комментариев
+     */
+    @Query(
+            "select c.pk as pk, c.text as text, c.createdAt as createdAt, u.id as authorId,"
+                    + " u.image as authorImage, u.firstName as authorFirstName"
+                    + " from CommentsDao c join c.author u"
+                    + " where c.ad.pk = :adPk order by c.createdAt desc, c.pk desc")
+    List<CommentSummary> findSummariesByAdPk(@Param("adPk") Integer adPk, Pageable pageable);
+
+    /**
+     * Следующая страница комментариев к объявлению после комментария с указанными датой создания
+     * и идентификатором (keyset-пагинация). Сравнение строк {@code (created_at, pk) < (...)}
+     * служит границей сканирования индекса {@code idx_comments_ad_id_created_at}, поэтому время
+     * ответа не зависит от глубины страницы.
      *
      * @param adPk идентификатор объявления (ad.pk)
-     * @param pageable параметры пагинации и сортировки
-     * @return страница комментариев
+     * @param createdAt дата создания последнего комментария предыдущей страницы
+     * @param pk идентификатор последнего комментария предыдущей страницы
+     * @param pageable ограничение размера выборки (номер страницы всегда 0)
+     * @return проекции комментариев
      */
-    Page<CommentsDao> findByAdPk(Integer adPk, Pageable pageable);
+    @Query(
+            value =
+                    "SELECT c.pk AS pk, c.text AS text, c.created_at AS \"createdAt\","
+                            + " u.id AS \"authorId\", u.image AS \"authorImage\","
+                            + " u.first_name AS \"authorFirstName\""
+                            + " FROM comments c JOIN users u ON u.id = c.user_id"
+                            + " WHERE c.ad_id = :adPk AND (c.created_at, c.pk) < (:createdAt, :pk)"
+                            + " ORDER BY c.created_at DESC, c.pk DESC",
+            nativeQuery = true)
+    List<CommentSummary> findSummariesByAdPkBefore(
+            @Param("adPk") Integer adPk,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("pk") Integer pk,
+            Pageable pageable);
 
     /**
      * Подсчёт количества комментариев у объявления.
@@ -0,0 +1,95 @@
+package ru.skypro.homework.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import ru.skypro.homework.model.ImageBlobsDao;
+
+import java.util.Optional;
+
+/**
+ * Счётчики ссылок на файлы картинок объявлений. Изменение счётчика блокирует строку до конца
+ * транзакции, поэтому параллельные загрузки и удаления одного и того же файла выполняются по
+ * очереди.
+ */
+@Repository
+public interface ImageBlobRepository
+        extends org.springframework.data.repository.Repository<ImageBlobsDao, String> {
+
+    /**
+     * Добавляет ссылку на файл, создавая запись со счётчиком 1, если её ещё нет.
+     *
+     * @param filename имя файла
+     */
+    @Modifying
+    @Transactional
+    @Query(
+            value =
+                    "INSERT INTO image_blobs (filename, ref_count) VALUES (:filename, 1)"
+                            + " ON CONFLICT (filename)"
+                            + " DO UPDATE SET ref_count = image_blobs.ref_count + 1",
+            nativeQuery = true)
+    void incrementRefCount(@Param("filename") String filename);
+
+    /**
+     * Получение текущего числа ссылок на файл.
+     *
+     * @param filename имя файла
+     * @return число ссылок или пустой Optional, если файл не учитывается
+     */
+    @Query("select b.refCount from ImageBlobsDao b where b.filename = :filename")
+    Optional<Integer> findRefCount(@Param("filename") String filename);
+
+    /**
+     * Блокирует запись о файле до конца текущей транзакции и возвращает число ссылок. Загрузка
+     * того же содержимого в параллельной транзакции дождётся её завершения, а изменения,
+     * зафиксированные до блокировки, видны следующим запросам транзакции.
+     *
+     * @param filename имя файла
+     * @return число ссылок или пустой Optional, если файл не учитывается
+     */
+    @Query(
+            value = "SELECT ref_count FROM image_blobs WHERE filename = :filename FOR UPDATE",
+            nativeQuery = true)
+    Optional<Integer> lockRefCount(@Param("filename") String filename);
+
+    /**
+     * Убирает ссылку на файл.
+     *
+     * @param filename имя файла
+     * @return число обновлённых строк (0, если файл не учитывается)
+     */
+    @Modifying
+    @Transactional
+    @Query(
+            "update ImageBlobsDao b set b.refCount = b.refCount - 1"
+                    + " where b.filename = :filename and b.refCount > 0")
+    int decrementRefCount(@Param("filename") String filename);
+
+    /**
+     * Удаляет запись о файле, на который не осталось ссылок.
+     *
+     * @param filename имя файла
+     * @return 1, если запись удалена, и 0, если на файл снова ссылаются
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ImageBlobsDao b where b.filename = :filename and b.refCount = 0")
+    int deleteIfUnreferenced(@Param("filename") String filename);
+
+    /**
+     * Удаляет запись о файле независимо от счётчика. Используется сборщиком, когда ни одно
+     * объявление не ссылается на файл, а счётчик остался больше нуля (например, после каскадного
+     * удаления объявлений вместе с пользователем). Запись должна быть заблокирована {@link
+     * #lockRefCount(String)} в той же транзакции.
+     *
+     * @param filename имя файла
+     * @return число удалённых записей
+     */
+    @Modifying
+    @Query("delete from ImageBlobsDao b where b.filename = :filename")
+    int deleteByFilename(@Param("filename") String filename);
+}
@@ -1,10 +1,14 @@
 package ru.skypro.homework.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ru.skypro.homework.model.UsersDao;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,13 @@ public interface UserRepository extends JpaRepository<UsersDao, Integer> {
     Optional<UsersDao> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    /**
+     * Получение путей к аватарам из списка, на которые ссылается хотя бы один пользователь.
+     *
+     * @param images пути к аватарам (например, "/avatars/1.jpg")
+     * @return пути из списка, используемые пользователями
+     */
+    @Query("select distinct u.image from UsersDao u where u.image in :images")
+    List<String> findImagesIn(@Param("images") Collection<String> images);
 }
@@ -0,0 +1,12 @@
+package ru.skypro.homework.repository.projection;
+
+/**
+ * Проекция объявления для проверки прав и удаления: автор и путь к картинке читаются из строки
+ * {@code ads} без загрузки сущности и её комментариев.
+ */
+public interface AdOwnership {
+
+    Integer getAuthorId();
+
+    String getImage();
+}
@@ -0,0 +1,11 @@
+package ru.skypro.homework.repository.projection;
+
+/**
+ * Результат полнотекстового поиска объявлений: поля {@link AdSummary} и релевантность, по которой
+ * упорядочена выдача и строится курсор следующей страницы.
+ */
+public interface AdSearchResult extends AdSummary {
+
+    /** Релевантность ({@code ts_rank}) объявления для поискового запроса. */
+    Float getRank();
+}
@@ -0,0 +1,21 @@
+package ru.skypro.homework.repository.projection;
+
+/**
+ * Проекция объявления для списков: только поля, необходимые для {@link
+ * ru.skypro.homework.dto.ad.AdDto}. Читается запросом напрямую из таблицы {@code ads} без загрузки
+ * управляемых сущностей и прокси автора.
+ */
+public interface AdSummary {
+
+    Integer getPk();
+
+    String getTitle();
+
+    Integer getPrice();
+
+    String getImage();
+
+    Integer getAuthorId();
+
+    Integer getCommentCount();
+}
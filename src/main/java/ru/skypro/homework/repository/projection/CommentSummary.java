@@ -0,0 +1,22 @@
+package ru.skypro.homework.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция комментария для списков: поля {@link ru.skypro.homework.dto.comment.CommentDto},
+ * включая данные автора, читаются одним запросом с соединением таблицы {@code users}.
+ */
+public interface CommentSummary {
+
+    Integer getPk();
+
+    String getText();
+
+    LocalDateTime getCreatedAt();
+
+    Integer getAuthorId();
+
+    String getAuthorImage();
+
+    String getAuthorFirstName();
+}
@@ -0,0 +1,12 @@
+package ru.skypro.homework.repository.projection;
+
+/**
+ * Проекция объявления для повторной обработки картинки: идентификатор и путь к картинке без
+ * загрузки сущности.
+ */
+public interface PendingImage {
+
+    Integer getPk();
+
+    String getImage();
+}
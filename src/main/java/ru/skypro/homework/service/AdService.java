@@ -6,6 +6,9 @@ import ru.skypro.homework.dto.ad.AdDto;
 import ru.skypro.homework.dto.ad.AdsDto;
 import ru.skypro.homework.dto.ad.CreateOrUpdateAdDto;
 import ru.skypro.homework.dto.ad.ExtendedAdDto;
+import ru.skypro.homework.dto.image.ImageDto;
+
+import java.util.function.Consumer;
 
 /**
  * Сервис для работы с объявлениями. Предоставляет методы для получения, создания, обновления,
@@ -16,6 +19,36 @@ public interface AdService {
     /** Получение всех объявлений. */
     AdsDto getAllAds();
 
+    /**
+     * Получение страницы объявлений по курсору (keyset-пагинация по pk).
+     *
+     * @param cursor курсор, полученный в поле {@code next} предыдущей страницы, или null для
+     *     первой страницы
+     * @param limit максимальное количество объявлений на странице
+     * @return AdsDto с объявлениями страницы и курсором следующей страницы
+     */
+    AdsDto getAdsPage(String cursor, int limit);
+
+    /**
+     * Полнотекстовый поиск по заголовку и описанию. Объявления упорядочены по убыванию
+     * релевантности, страницы выдаются по курсору.
+     *
+     * @param query поисковый запрос
+     * @param cursor курсор, полученный в поле {@code next} предыдущей страницы, или null для
+     *     первой страницы
+     * @param limit максимальное количество объявлений на странице
+     * @return AdsDto с найденными объявлениями и курсором следующей страницы
+     */
+    AdsDto searchAds(String query, String cursor, int limit);
+
+    /**
+     * Потоковая выгрузка всех объявлений. Каждое объявление передаётся в {@code consumer} сразу
+     * после чтения из БД, полный список в памяти не собирается.
+     *
+     * @param consumer получатель объявлений (например, запись в ответ)
+     */
+    void streamAllAds(Consumer<AdDto> consumer);
+
     /**
      * Добавление нового объявления.
      *
@@ -59,13 +92,32 @@ public interface AdService {
      */
     AdsDto getAdsMe();
 
+    /**
+     * Получение страницы объявлений текущего пользователя по курсору (keyset-пагинация по pk).
+     *
+     * @param cursor курсор, полученный в поле {@code next} предыдущей страницы, или null для
+     *     первой страницы
+     * @param limit максимальное количество объявлений на странице
+     * @return AdsDto с объявлениями страницы, общим числом объявлений пользователя и курсором
+     *     следующей страницы
+     */
+    AdsDto getAdsMePage(String cursor, int limit);
+
     /**
      * Обновление картинки объявления.
      *
      * @param id идентификатор объявления
      * @param email email текущего пользователя
      * @param image новый файл изображения
-     * @return обновлённое изображение в виде байт
+     * @return ссылка, размер и ETag новой картинки (содержимое файла повторно не читается)
+     */
+    ImageDto updateImage(Integer id, String email, MultipartFile image);
+
+    /**
+     * Вытеснение из кэша карточек всех объявлений автора. Вызывается при изменении профиля
+     * автора, данные которого входят в {@link ExtendedAdDto}.
+     *
+     * @param authorId идентификатор автора
      */
-    byte[] updateImage(Integer id, String email, MultipartFile image);
+    void evictAuthorAdCards(Integer authorId);
 }
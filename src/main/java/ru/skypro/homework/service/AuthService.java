@@ -1,10 +1,11 @@
 package ru.skypro.homework.service;
 
 import ru.skypro.homework.dto.auth.RegisterDto;
+import ru.skypro.homework.dto.auth.TokenDto;
 
 /**
  * Сервис аутентификации и регистрации пользователей. Предоставляет методы для входа в систему и
- * регистрации новых пользователей.
+ * регистрации новых пользователей, а также выдачи и обновления токенов доступа.
  */
 public interface AuthService {
 
@@ -13,10 +14,21 @@ public interface AuthService {
      *
      * @param userName логин (email)
      * @param password пароль
+     * @return пара токенов доступа и обновления
      * @throws org.springframework.security.authentication.BadCredentialsException если неверные
      *     учетные данные
      */
-    void login(String userName, String password);
+    TokenDto login(String userName, String password);
+
+    /**
+     * Выдача новой пары токенов по токену обновления.
+     *
+     * @param refreshToken токен обновления, полученный при авторизации
+     * @return новая пара токенов
+     * @throws ru.skypro.homework.exception.InvalidTokenException если токен недействителен, истёк
+     *     или пароль пользователя был изменён после его выдачи
+     */
+    TokenDto refresh(String refreshToken);
 
     /**
      * Регистрация нового пользователя.
@@ -0,0 +1,175 @@
+package ru.skypro.homework.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ru.skypro.homework.constants.CacheNames;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Кэш успешно проверенных учётных данных. Позволяет повторным запросам с HTTP Basic не обращаться
+ * к БД и не выполнять дорогую проверку BCrypt.
+ *
+ * <p>Запись хранится по email пользователя и содержит HMAC-SHA256 от пары email и пароля, а не сам
+ * пароль. Ключ HMAC генерируется случайно при старте приложения и нигде не сохраняется, поэтому
+ * содержимое кэша бесполезно вне текущего процесса.
+ *
+ * <p>Запись удаляется при смене пароля и удалении пользователя, а также по истечении TTL из {@code
+ * app.cache.authentications.ttl}.
+ *
+ * <p>Проверка пароля делегатом долгая, и пароль может смениться, пока она идёт. Поэтому перед
+ * проверкой берётся отметка {@link #stamp(String)}, а {@link #put} сохраняет запись, только если
+ * с тех пор запись пользователя не удалялась. Иначе проверка, начатая со старым паролем, вернула
+ * бы его в кэш уже после удаления записи. Отметка – номер версии из фиксированного набора
+ * счётчиков, общих для пользователей с одинаковым хешем email: удаление увеличивает счётчик, а
+ * отметка и неудачные входы в кэш ничего не записывают и не занимают его ёмкость.
+ *
+ * @see CachingAuthenticationProvider
+ */
+@Slf4j
+@Service
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_LENGTH = 32;
+    private static final int VERSION_STRIPES = 1024;
+
+    private final ConcurrentMap<Object, Object> entries;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final SecretKeySpec key;
+
+    @SuppressWarnings("unchecked")
+    public AuthenticationCache(CacheManager cacheManager) {
+        Cache cache =
+                Objects.requireNonNull(
+                        cacheManager.getCache(CacheNames.AUTHENTICATIONS),
+                        CacheNames.AUTHENTICATIONS);
+        // Условная запись доступна только у самого Caffeine, поэтому кэш используется напрямую,
+        // а удаление после фиксации транзакции выполняется в evict
+        this.entries =
+                ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache())
+                        .asMap();
+        byte[] secret = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Возвращает данные пользователя, если пара email/пароль уже была успешно проверена.
+     *
+     * @param username email пользователя
+     * @param password пароль в открытом виде
+     * @return данные пользователя или пустой {@link Optional}, если записи нет или пароль другой
+     */
+    public Optional<UserDetails> find(String username, String password) {
+        Entry entry = (Entry) entries.get(username);
+        if (entry == null || !MessageDigest.isEqual(entry.digest, digest(username, password))) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.user);
+    }
+
+    /**
+     * Возвращает отметку текущей версии записи пользователя. Вызывается перед проверкой пароля,
+     * результат которой затем передаётся в {@link #put}. Кэш при этом не изменяется.
+     *
+     * @param username email пользователя
+     * @return отметка для {@link #put}
+     */
+    public long stamp(String username) {
+        return versions.get(stripe(username));
+    }
+
+    /**
+     * Запоминает успешно проверенную пару email/пароль, если запись пользователя не удалялась с
+     * момента получения отметки.
+     *
+     * @param username email пользователя
+     * @param password пароль в открытом виде
+     * @param user данные пользователя, полученные при проверке
+     * @param stamp отметка {@link #stamp(String)}, полученная до начала проверки
+     */
+    public void put(String username, String password, UserDetails user, long stamp) {
+        int stripe = stripe(username);
+        Entry entry = new Entry(digest(username, password), user);
+        // Версия сверяется под блокировкой ключа: удаление, увеличившее версию позже, удалит и
+        // эту запись
+        Object stored =
+                entries.compute(
+                        username,
+                        (name, current) -> versions.get(stripe) == stamp ? entry : current);
+        if (stored != entry) {
+            log.debug("Authentication cache entry evicted during verification: {}", username);
+        }
+    }
+
+    /**
+     * Удаляет запись пользователя. Внутри транзакции удаление выполняется после её фиксации.
+     *
+     * @param username email пользователя
+     */
+    public void evict(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evictNow(username);
+                    }
+                });
+    }
+
+    private void evictNow(String username) {
+        versions.incrementAndGet(stripe(username));
+        entries.remove(username);
+        log.debug("Authentication cache evicted for user: {}", username);
+    }
+
+    private static int stripe(String username) {
+        int hash = username.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private byte[] digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final byte[] digest;
+        private final UserDetails user;
+
+        private Entry(byte[] digest, UserDetails user) {
+            this.digest = digest;
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.skypro.homework.service;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Optional;
+
+/**
+ * {@link AuthenticationProvider}, проверяющий логин и пароль сначала по {@link
+ * AuthenticationCache}, и только при промахе – через делегата (обычно {@code
+ * DaoAuthenticationProvider} с загрузкой пользователя из БД и проверкой BCrypt).
+ *
+ * <p>В кэш попадают только успешные проверки, поэтому неверный пароль всегда проходит полную
+ * проверку делегатом. Проверка, во время которой запись пользователя была удалена (например, при
+ * смене пароля), в кэш не попадает.
+ *
+ * @see AuthenticationCache
+ */
+@RequiredArgsConstructor
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final AuthenticationCache authenticationCache;
+
+    @Override
+    public Authentication authenticate(Authentication authentication)
+            throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+        String password = credentials.toString();
+
+        Optional<UserDetails> cached = authenticationCache.find(username, password);
+        if (cached.isPresent()) {
+            UserDetails user = cached.get();
+            UsernamePasswordAuthenticationToken result =
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        long stamp = authenticationCache.stamp(username);
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails) {
+            authenticationCache.put(username, password, (UserDetails) result.getPrincipal(), stamp);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.skypro.homework.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.skypro.homework.repository.AdRepository;
+
+/**
+ * Фоновая сверка счётчиков комментариев {@code ads.comment_count} с таблицей {@code comments}.
+ * Счётчик изменяется при добавлении и удалении комментария через {@link CommentService}, но
+ * расходится с таблицей при удалении комментариев в обход сервиса, например каскадно вместе с
+ * пользователем.
+ *
+ * <p>Объявления обходятся диапазонами идентификаторов по {@code
+ * app.comment-count.reconcile.batch-size}, каждый диапазон – в отдельной короткой транзакции:
+ * строки диапазона блокируются, затем счётчики пересчитываются одним запросом. Блокировка не даёт
+ * перезаписать изменение счётчика, сделанное параллельной транзакцией во время пересчёта.
+ *
+ * <p>Сверку запускает общий планировщик по расписанию {@code app.comment-count.reconcile.cron}.
+ * Число исправленных объявлений публикуется в метрике {@code comment.count.reconciled}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(
+        name = "app.comment-count.reconcile.enabled",
+        havingValue = "true",
+        matchIfMissing = true)
+public class CommentCountReconciler {
+
+    private final AdRepository adRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+
+    public CommentCountReconciler(
+            AdRepository adRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.comment-count.reconcile.batch-size}") int batchSize) {
+        this.adRepository = adRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Пересчитывает счётчики комментариев всех объявлений.
+     *
+     * @return число объявлений, счётчик которых был исправлен
+     */
+    public int reconcile() {
+        Integer maxPk = adRepository.findMaxPk();
+        int fixed = 0;
+        if (maxPk != null) {
+            for (int fromPk = 0; fromPk < maxPk; fromPk += batchSize) {
+                int from = fromPk;
+                int to = (int) Math.min((long) fromPk + batchSize, maxPk);
+                Integer batchFixed =
+                        transactionTemplate.execute(
+                                status -> {
+                                    adRepository.lockPkRange(from, to);
+                                    return adRepository.reconcileCommentCounts(from, to);
+                                });
+                fixed += batchFixed != null ? batchFixed : 0;
+            }
+        }
+        meterRegistry.counter("comment.count.reconciled").increment(fixed);
+        if (fixed > 0) {
+            log.warn("Comment count reconciliation fixed {} ads", fixed);
+        } else {
+            log.info("Comment count reconciliation found no drift");
+        }
+        return fixed;
+    }
+
+    @Scheduled(cron = "${app.comment-count.reconcile.cron}")
+    void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Comment count reconciliation failed", e);
+        }
+    }
+}
@@ -18,6 +18,17 @@ public interface CommentService {
      */
     CommentsDto getComments(Integer adId);
 
+    /**
+     * Получение страницы комментариев к объявлению по курсору (сначала новые).
+     *
+     * @param adId идентификатор объявления
+     * @param cursor курсор, полученный в поле {@code next} предыдущей страницы, или null для
+     *     первой страницы
+     * @param limit максимальное количество комментариев на странице
+     * @return CommentsDto с комментариями страницы и курсором следующей страницы
+     */
+    CommentsDto getCommentsPage(Integer adId, String cursor, int limit);
+
     /**
      * Добавление комментария к объявлению
      *
@@ -1,14 +1,22 @@
 package ru.skypro.homework.service;
 
-import lombok.RequiredArgsConstructor;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import ru.skypro.homework.constants.ExceptionMessages;
+import ru.skypro.homework.dto.auth.AuthenticatedUser;
+import ru.skypro.homework.dto.auth.Role;
 import ru.skypro.homework.exception.UserNotFoundException;
 import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.UserRepository;
@@ -17,16 +25,38 @@ import ru.skypro.homework.repository.UserRepository;
  * Сервис для получения информации о текущем аутентифицированном пользователе. Содержит методы для
  * получения email и полной сущности {@link UsersDao} из контекста безопасности.
  *
+ * <p>В рамках HTTP-запроса сущность текущего пользователя загружается из БД один раз и хранится в
+ * атрибутах запроса, так что повторные вызовы из разных сервисов не выполняют запрос повторно.
+ * Число сэкономленных обращений к БД публикуется в метрике {@value #LOOKUPS_SAVED_METRIC}. Вне
+ * HTTP-запроса пользователь каждый раз загружается из БД.
+ *
  * <p>При отсутствии аутентификации выбрасывает {@link AuthenticationException}.
  *
  * @see UserRepository
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CurrentUserService {
 
+    static final String LOOKUPS_SAVED_METRIC = "app.current.user.lookups.saved";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private static final String CURRENT_USER_ATTRIBUTE =
+            CurrentUserService.class.getName() + ".CURRENT_USER";
+
     private final UserRepository userRepository;
+    private final Counter lookupsSaved;
+
+    public CurrentUserService(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.lookupsSaved =
+                Counter.builder(LOOKUPS_SAVED_METRIC)
+                        .description(
+                                "Обращения к БД за текущим пользователем, пропущенные благодаря"
+                                        + " кэшу запроса")
+                        .register(meterRegistry);
+    }
 
     /**
      * Возвращает email текущего аутентифицированного пользователя.
@@ -43,6 +73,28 @@ public class CurrentUserService {
         return authentication.getName();
     }
 
+    /**
+     * Возвращает идентификатор текущего аутентифицированного пользователя из principal {@link
+     * AuthenticatedUser} без обращения к БД.
+     *
+     * @throws AuthenticationException если пользователь не аутентифицирован
+     */
+    public Integer getCurrentUserId() {
+        return ((AuthenticatedUser) currentAuthentication().getPrincipal()).getId();
+    }
+
+    /**
+     * Проверяет роль текущего аутентифицированного пользователя по полномочиям {@code ROLE_<роль>}
+     * из контекста безопасности без обращения к БД.
+     *
+     * @throws AuthenticationException если пользователь не аутентифицирован
+     */
+    public boolean hasCurrentRole(Role role) {
+        String authority = ROLE_PREFIX + role.name();
+        return currentAuthentication().getAuthorities().stream()
+                .anyMatch(granted -> authority.equals(granted.getAuthority()));
+    }
+
     /**
      * Возвращает сущность текущего аутентифицированного пользователя.
      *
@@ -50,23 +102,52 @@ public class CurrentUserService {
      * @throws UserNotFoundException если пользователь не найден в БД
      */
     public UsersDao getCurrentUser() {
-        String email = getCurrentUserEmail();
-        log.debug("Fetching current user with email: {}", email);
-        return userRepository
-                .findByEmail(email)
-                .orElseThrow(
-                        () ->
-                                new UserNotFoundException(
-                                        String.format(ExceptionMessages.USER_NOT_FOUND, email)));
+        return getUserByEmail(getCurrentUserEmail());
     }
 
+    /**
+     * Возвращает сущность пользователя по email. Если это текущий пользователь и он уже загружен в
+     * рамках запроса, повторного обращения к БД нет.
+     *
+     * @throws UserNotFoundException если пользователь не найден в БД
+     */
     public UsersDao getUserByEmail(String email) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object cached = request.getAttribute(CURRENT_USER_ATTRIBUTE, SCOPE_REQUEST);
+            if (cached instanceof UsersDao && email.equals(((UsersDao) cached).getEmail())) {
+                lookupsSaved.increment();
+                return (UsersDao) cached;
+            }
+        }
+
         log.debug("Fetching user with email: {}", email);
-        return userRepository
-                .findByEmail(email)
-                .orElseThrow(
-                        () ->
-                                new UserNotFoundException(
-                                        String.format(ExceptionMessages.USER_NOT_FOUND, email)));
+        UsersDao user =
+                userRepository
+                        .findByEmail(email)
+                        .orElseThrow(
+                                () ->
+                                        new UserNotFoundException(
+                                                String.format(
+                                                        ExceptionMessages.USER_NOT_FOUND, email)));
+        if (request != null && email.equals(currentAuthenticationName())) {
+            request.setAttribute(CURRENT_USER_ATTRIBUTE, user, SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    private static Authentication currentAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
+            throw new AuthenticationException(ExceptionMessages.USER_NOT_AUTHENTICATED) {};
+        }
+        return authentication;
+    }
+
+    private static String currentAuthenticationName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
     }
 }
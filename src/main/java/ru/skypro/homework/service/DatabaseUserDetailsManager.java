@@ -3,8 +3,8 @@ package ru.skypro.homework.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -13,18 +13,22 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import ru.skypro.homework.constants.ExceptionMessages;
+import ru.skypro.homework.dto.auth.AuthenticatedUser;
 import ru.skypro.homework.exception.InvalidCurrentPasswordException;
 import ru.skypro.homework.exception.UserNotFoundException;
 import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.UserRepository;
 
+import java.util.List;
+
 /**
  * Кастомная реализация {@link UserDetailsManager}, обеспечивающая хранение и управление
  * пользователями в базе данных через {@link UserRepository}.
  *
  * <p>Используется для аутентификации и авторизации на основе данных из БД. Предоставляет полный
  * набор операций управления пользователями: загрузка, создание, обновление, удаление, смена пароля,
- * проверка существования.
+ * проверка существования. При смене пароля сбрасывает запись пользователя в {@link
+ * AuthenticationCache}.
  *
  * @see UserDetailsManager
  * @see UserRepository
@@ -38,12 +42,13 @@ public class DatabaseUserDetailsManager implements UserDetailsManager {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AuthenticationCache authenticationCache;
 
     /**
      * Загружает пользователя по его email (username).
      *
      * @param username email пользователя
-     * @return объект {@link UserDetails}, содержащий имя, пароль и роли
+     * @return объект {@link AuthenticatedUser}, содержащий идентификатор, имя, пароль и роли
      * @throws UsernameNotFoundException если пользователь с таким email не найден
      */
     @Override
@@ -57,11 +62,11 @@ public class DatabaseUserDetailsManager implements UserDetailsManager {
                                                 String.format(
                                                         ExceptionMessages.USER_NOT_FOUND,
                                                         username)));
-        return User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .roles(user.getRole().name())
-                .build();
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getEmail(),
+                user.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
     }
 
     /**
@@ -92,7 +97,8 @@ public class DatabaseUserDetailsManager implements UserDetailsManager {
     }
 
     /**
-     * Удаляет пользователя по email.
+     * Удаляет пользователя по email. Запись в {@link AuthenticationCache} удаляет {@link
+     * ru.skypro.homework.model.UsersDaoListener} после удаления сущности.
      *
      * @param username email удаляемого пользователя
      * @throws UserNotFoundException если пользователь не найден
@@ -140,6 +146,7 @@ public class DatabaseUserDetailsManager implements UserDetailsManager {
         }
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        authenticationCache.evict(currentUsername);
         log.info("Password changed for user: {}", currentUsername);
     }
 
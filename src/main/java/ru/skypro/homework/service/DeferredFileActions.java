@@ -0,0 +1,119 @@
+package ru.skypro.homework.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Действия с файлами, привязанные к фиксации транзакции БД. Файловое хранилище не участвует в
+ * транзакции, поэтому удаление файла внутри неё необратимо: при откате строка в БД вернётся, а
+ * файл – нет. Действие регистрируется как {@link TransactionSynchronization#afterCommit()} и
+ * выполняется только после успешной фиксации, а при откате отбрасывается.
+ *
+ * <p>Само действие выполняется в фоновом потоке ({@code app.image.cleanup.*}), чтобы обращение к
+ * хранилищу (в том числе сетевое для S3) не задерживало ответ и не держало соединение с БД, которое
+ * освобождается уже после {@code afterCommit}. Если действие не выполнено (ошибка, заполненная
+ * очередь или остановка приложения), файл остаётся без ссылки и удаляется {@link
+ * OrphanImageCollector}.
+ *
+ * <p>Метрики очереди публикуются как {@code executor.*} с тегом {@code name=imageCleanup}.
+ */
+@Slf4j
+@Service
+public class DeferredFileActions {
+
+    private static final String EXECUTOR_NAME = "imageCleanup";
+
+    private final Executor executor;
+
+    @Autowired
+    public DeferredFileActions(
+            MeterRegistry meterRegistry,
+            @Value("${app.image.cleanup.threads}") int threads,
+            @Value("${app.image.cleanup.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(threads);
+        taskExecutor.setMaxPoolSize(threads);
+        taskExecutor.setQueueCapacity(queueCapacity);
+        taskExecutor.setThreadNamePrefix("image-cleanup-");
+        taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        taskExecutor.setAwaitTerminationSeconds(30);
+        taskExecutor.initialize();
+        ExecutorServiceMetrics.monitor(
+                meterRegistry, taskExecutor.getThreadPoolExecutor(), EXECUTOR_NAME);
+        this.executor = taskExecutor;
+    }
+
+    /**
+     * @param executor исполнитель действий (например, {@code Runnable::run} в тестах)
+     */
+    DeferredFileActions(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Выполняет действие после фиксации текущей транзакции. Вне транзакции действие ставится в
+     * очередь сразу. Ошибка действия записывается в журнал и вызывающему коду не передаётся.
+     *
+     * @param description описание действия для журнала
+     * @param action действие с файлом
+     */
+    public void afterCommit(String description, FileAction action) {
+        Runnable task =
+                () -> {
+                    try {
+                        action.run();
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Deferred file action failed: {}", description, e);
+                    }
+                };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            execute(description, task);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        execute(description, task);
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) executor).shutdown();
+        }
+    }
+
+    private void execute(String description, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Deferred file action rejected, left to orphan collector: {}", description);
+        }
+    }
+
+    /** Действие с файлом, которое может завершиться ошибкой ввода-вывода. */
+    @FunctionalInterface
+    public interface FileAction {
+        void run() throws IOException;
+    }
+}
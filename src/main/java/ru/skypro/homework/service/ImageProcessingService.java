@@ -0,0 +1,216 @@
+package ru.skypro.homework.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ru.skypro.homework.constants.CacheNames;
+import ru.skypro.homework.dto.image.ImageStatus;
+import ru.skypro.homework.repository.AdRepository;
+import ru.skypro.homework.repository.projection.PendingImage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Фоновая очередь обработки картинок объявлений. Декодирование и масштабирование выполняются не в
+ * потоке запроса и не внутри его транзакции, поэтому загрузка картинки не держит соединение из
+ * пула БД.
+ *
+ * <p>Очередь ограничена ({@code app.image.processing.queue-capacity}). Когда она заполнена,
+ * задача отклоняется, а картинка остаётся в состоянии {@code PENDING}: такие картинки раз в {@code
+ * app.image.processing.sweep-interval} снова ставятся в очередь. Неудачная обработка повторяется
+ * до {@code app.image.processing.max-attempts} раз: повтор планируется общим планировщиком с
+ * увеличивающейся задержкой и не занимает поток обработки. Результат записывается в {@code
+ * ads.image_status}.
+ *
+ * <p>Метрики очереди публикуются как {@code executor.*} с тегом {@code name=imageProcessing}.
+ */
+@Slf4j
+@Service
+public class ImageProcessingService {
+
+    private static final String EXECUTOR_NAME = "imageProcessing";
+
+    private final ImageService imageService;
+    private final AdRepository adRepository;
+    private final CacheManager cacheManager;
+    private final TaskScheduler taskScheduler;
+    private final ThreadPoolTaskExecutor executor;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final int sweepBatchSize;
+
+    /** Картинки в очереди или в ожидании повтора: идентификатор объявления и путь к картинке. */
+    private final ConcurrentMap<Integer, String> inFlight = new ConcurrentHashMap<>();
+
+    public ImageProcessingService(
+            ImageService imageService,
+            AdRepository adRepository,
+            CacheManager cacheManager,
+            TaskScheduler taskScheduler,
+            MeterRegistry meterRegistry,
+            @Value("${app.image.processing.threads}") int threads,
+            @Value("${app.image.processing.queue-capacity}") int queueCapacity,
+            @Value("${app.image.processing.max-attempts}") int maxAttempts,
+            @Value("${app.image.processing.retry-delay}") Duration retryDelay,
+            @Value("${app.image.processing.sweep-batch-size}") int sweepBatchSize) {
+        this.imageService = imageService;
+        this.adRepository = adRepository;
+        this.cacheManager = cacheManager;
+        this.taskScheduler = taskScheduler;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.sweepBatchSize = sweepBatchSize;
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-processing-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        ExecutorServiceMetrics.monitor(
+                meterRegistry, executor.getThreadPoolExecutor(), EXECUTOR_NAME);
+    }
+
+    /**
+     * Ставит в очередь создание уменьшенных вариантов картинки объявления. Внутри транзакции
+     * задача отправляется после её фиксации, чтобы не обрабатывать картинку отменённого изменения.
+     *
+     * @param adPk идентификатор объявления
+     * @param imagePath относительный путь к картинке (например, "/ads-images/file.jpg")
+     */
+    public void submitVariants(Integer adPk, String imagePath) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(adPk, imagePath, 1);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        submit(adPk, imagePath, 1);
+                    }
+                });
+    }
+
+    /**
+     * Снова ставит в очередь картинки, оставшиеся в состоянии {@code PENDING}: задача была
+     * отклонена при заполненной очереди или потеряна при остановке приложения. Картинки, которые
+     * уже ждут обработки, пропускаются.
+     */
+    @Scheduled(
+            initialDelayString = "${app.image.processing.sweep-interval}",
+            fixedDelayString = "${app.image.processing.sweep-interval}")
+    public void resubmitPending() {
+        int resubmitted = 0;
+        for (PendingImage pending :
+                adRepository.findImagesByStatus(
+                        ImageStatus.PENDING, PageRequest.of(0, sweepBatchSize))) {
+            if (inFlight.containsKey(pending.getPk())) {
+                continue;
+            }
+            if (!submit(pending.getPk(), pending.getImage(), 1)) {
+                break;
+            }
+            resubmitted++;
+        }
+        if (resubmitted > 0) {
+            log.info("Resubmitted {} pending images for processing", resubmitted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return false, если очередь заполнена и картинка оставлена в состоянии {@code PENDING}
+     */
+    private boolean submit(Integer adPk, String imagePath, int attempt) {
+        inFlight.put(adPk, imagePath);
+        try {
+            executor.execute(() -> processVariants(adPk, imagePath, attempt));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(adPk, imagePath);
+            log.warn("Image processing queue is full, image of ad id: {} left pending", adPk);
+            return false;
+        }
+    }
+
+    private void processVariants(Integer adPk, String imagePath, int attempt) {
+        try {
+            imageService.createVariants(imagePath);
+        } catch (RuntimeException e) {
+            log.warn(
+                    "Image processing attempt {}/{} failed for ad id: {}",
+                    attempt,
+                    maxAttempts,
+                    adPk,
+                    e);
+            if (attempt < maxAttempts) {
+                scheduleRetry(adPk, imagePath, attempt + 1);
+            } else {
+                finish(adPk, imagePath, ImageStatus.FAILED);
+            }
+            return;
+        }
+        finish(adPk, imagePath, ImageStatus.READY);
+    }
+
+    private void scheduleRetry(Integer adPk, String imagePath, int attempt) {
+        Instant retryAt = Instant.now().plus(retryDelay.multipliedBy(attempt - 1));
+        try {
+            taskScheduler.schedule(() -> submit(adPk, imagePath, attempt), retryAt);
+        } catch (RejectedExecutionException e) {
+            // Планировщик остановлен: картинка остаётся PENDING до следующего запуска
+            inFlight.remove(adPk, imagePath);
+            log.warn("Image processing retry for ad id: {} not scheduled", adPk);
+        }
+    }
+
+    private void finish(Integer adPk, String imagePath, ImageStatus status) {
+        try {
+            updateStatus(adPk, imagePath, status);
+        } finally {
+            inFlight.remove(adPk, imagePath);
+        }
+    }
+
+    private void updateStatus(Integer adPk, String imagePath, ImageStatus status) {
+        // Картинку могли заменить или удалить объявление, пока задача ждала в очереди
+        int updated = adRepository.updateImageStatus(adPk, imagePath, status);
+        if (updated == 0) {
+            log.debug("Ad id: {} no longer uses image {}, status not updated", adPk, imagePath);
+            return;
+        }
+        Cache adCards = cacheManager.getCache(CacheNames.AD_CARDS);
+        if (adCards != null) {
+            adCards.evictIfPresent(adPk);
+        }
+        log.info("Image processing for ad id: {} finished with status {}", adPk, status);
+    }
+}
@@ -7,32 +7,63 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.multipart.MultipartFile;
 
+import ru.skypro.homework.constants.CacheNames;
 import ru.skypro.homework.constants.ExceptionMessages;
 import ru.skypro.homework.constants.ValidationConstants;
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.dto.image.ImageSize;
 import ru.skypro.homework.exception.ImageNotFoundException;
 import ru.skypro.homework.exception.ImageReadException;
 import ru.skypro.homework.exception.ImageSaveException;
 import ru.skypro.homework.exception.InvalidImageException;
+import ru.skypro.homework.repository.ImageBlobRepository;
+import ru.skypro.homework.util.ImageResizer;
+import ru.skypro.homework.util.ImageSignatures;
 
-import java.io.FileOutputStream;
+import java.awt.image.BufferedImage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
-import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 /**
  * Сервис для работы с изображениями. Обеспечивает сохранение, удаление, чтение файлов изображений,
- * а также загрузку их с определением MIME-типа.
+ * а также загрузку их с определением MIME-типа. Сами файлы хранит {@link ImageStorage}.
+ *
+ * <p>Картинки объявлений адресуются по содержимому: имя файла – SHA-256 содержимого, поэтому
+ * одинаковые картинки разных объявлений хранятся и кэшируются один раз. Число ссылок на файл
+ * ведётся в {@link ImageBlobRepository}, и файл удаляется вместе с последней ссылкой.
+ *
+ * <p>Небольшие картинки (до {@code app.cache.hot-images.max-entry-size} байт) после первого чтения
+ * хранятся в кэше {@link CacheNames#HOT_IMAGES} вместе с MIME-типом и валидаторами. Запись
+ * удаляется при удалении файла.
  *
  * <p>При ошибках ввода-вывода выбрасывает {@link ImageReadException}, при отсутствии файла – {@link
  * ImageNotFoundException}.
@@ -44,77 +75,166 @@ import javax.annotation.PostConstruct;
 @RequiredArgsConstructor
 public class ImageService {
 
-    @Value("${app.image.avatar-dir}")
-    private String avatarDir;
+    private static final String JPEG_FORMAT = "jpeg";
+
+    /** Форматы, для которых создаются уменьшенные варианты: расширение -> имя формата ImageIO. */
+    private static final Map<String, String> VARIANT_FORMATS =
+            Map.of(".jpg", JPEG_FORMAT, ".jpeg", JPEG_FORMAT, ".png", "png", ".gif", "gif");
 
-    @Value("${app.image.ad-dir}")
-    private String adImageDir;
+    /** Расширение файла по MIME-типу, определённому по сигнатуре содержимого. */
+    private static final Map<String, String> CONTENT_TYPE_EXTENSIONS =
+            Map.of(
+                    "image/jpeg", ".jpg",
+                    "image/png", ".png",
+                    "image/gif", ".gif",
+                    "image/bmp", ".bmp",
+                    "image/webp", ".webp");
+
+    @Value("${app.cache.hot-images.max-entry-size}")
+    private long hotImageMaxEntrySize;
+
+    @Value("${app.image.variants.max-pixels}")
+    private long variantMaxPixels;
+
+    private final ImageStorage imageStorage;
+    private final ImageBlobRepository imageBlobRepository;
+    private final DeferredFileActions deferredFileActions;
+    private final CacheManager cacheManager;
+    private final TransactionOperations transactionOperations;
 
     public ImageData loadAdImage(String filename) {
-        return loadImage(filename, adImageDir);
+        return loadImage(ImageArea.ADS, filename);
+    }
+
+    /**
+     * Загружает картинку объявления нужного размера. Если вариант не был создан (картинка ещё
+     * обрабатывается, загружена до появления вариантов, уже меньше нужного размера или не
+     * распознана), отдаётся оригинал, и результат помечается как {@link
+     * AdImageVariant#isFallback() замена}.
+     *
+     * @param filename имя исходного файла
+     * @param size требуемый размер
+     */
+    public AdImageVariant loadAdImage(String filename, ImageSize size) {
+        if (size != ImageSize.ORIGINAL) {
+            try {
+                return new AdImageVariant(
+                        loadImage(ImageArea.ADS, variantFilename(filename, size)), false);
+            } catch (ImageNotFoundException e) {
+                log.debug("No {} variant for {}, serving original", size.getValue(), filename);
+                return new AdImageVariant(loadImage(ImageArea.ADS, filename), true);
+            }
+        }
+        return new AdImageVariant(loadImage(ImageArea.ADS, filename), false);
+    }
+
+    /**
+     * Возвращает имя файла варианта картинки: {@code <имя>_<суффикс>.<расширение>}.
+     *
+     * @param filename имя исходного файла
+     * @param size размер варианта
+     */
+    public String variantFilename(String filename, ImageSize size) {
+        if (size == ImageSize.ORIGINAL) {
+            return filename;
+        }
+        int dot = filename.lastIndexOf('.');
+        String base = dot < 0 ? filename : filename.substring(0, dot);
+        String extension = dot < 0 ? "" : filename.substring(dot);
+        return base + "_" + size.getValue() + extension;
+    }
+
+    /**
+     * Возвращает имя исходного файла по имени файла варианта; для исходного файла возвращает его
+     * же имя.
+     *
+     * @param filename имя файла картинки объявления
+     * @see #variantFilename(String, ImageSize)
+     */
+    public String originalFilename(String filename) {
+        int dot = filename.lastIndexOf('.');
+        String base = dot < 0 ? filename : filename.substring(0, dot);
+        String extension = dot < 0 ? "" : filename.substring(dot);
+        for (ImageSize size : ImageSize.values()) {
+            String suffix = "_" + size.getValue();
+            if (size != ImageSize.ORIGINAL && base.endsWith(suffix)) {
+                return base.substring(0, base.length() - suffix.length()) + extension;
+            }
+        }
+        return filename;
     }
 
     public ImageData loadAvatar(String filename) {
-        return loadImage(filename, avatarDir);
+        return loadImage(ImageArea.AVATARS, filename);
     }
 
-    @PostConstruct
-    public void init() {
-        createDirectoryIfNotExists(avatarDir);
-        createDirectoryIfNotExists(adImageDir);
+    /**
+     * Возвращает ETag картинки объявления. Имя картинки объявления выводится из её содержимого и
+     * файл под тем же именем не меняется, поэтому имя файла – строгий валидатор, и проверить его
+     * можно без обращения к диску.
+     *
+     * @param filename имя файла
+     * @return значение заголовка ETag (в кавычках)
+     */
+    public String adImageETag(String filename) {
+        return "\"" + filename + "\"";
     }
 
     /**
-     * Сохраняет файл в указанную директорию.
+     * Сохраняет картинку объявления под именем, выведенным из содержимого, и добавляет ссылку на
+     * неё. Если такое содержимое уже сохранено, файл повторно не записывается.
+     *
+     * <p>Вызывается внутри транзакции: до её завершения строка счётчика заблокирована, поэтому
+     * параллельная загрузка той же картинки дождётся записи файла.
      *
      * @param image загружаемый файл
-     * @param directory корневая директория для сохранения (например, "./avatars")
-     * @param urlPrefix префикс URL для доступа (например, "/avatars/")
-     * @return относительный путь к файлу (например, "/avatars/file.jpg")
+     * @return относительный путь к файлу (например, "/ads-images/file.jpg")
+     * @throws InvalidImageException если содержимое не является изображением
      */
-    public String saveImage(MultipartFile image, String directory, String urlPrefix) {
+    public String saveAdImage(MultipartFile image) {
         validateImage(image);
         try {
-            String extension = getExtension(image.getOriginalFilename());
-            String filename = UUID.randomUUID() + extension;
-            Path uploadPath = Paths.get(directory);
-            // Логируем полный путь и имя файла
-            log.debug("Сохранение изображения в директорию: {}, имя файла: {}", uploadPath.toAbsolutePath(), filename);
-            Files.createDirectories(uploadPath);
-            Path filePath = uploadPath.resolve(filename);
-            image.transferTo(filePath.toFile());
-            log.info("Изображение успешно сохранено: {}", filePath.toAbsolutePath());
-            return urlPrefix + filename;
+            String filename =
+                    storeByContent(
+                            image,
+                            ImageArea.ADS,
+                            "",
+                            name -> {
+                                imageBlobRepository.incrementRefCount(name);
+                                int refCount = imageBlobRepository.findRefCount(name).orElse(1);
+                                return refCount > 1
+                                        && imageStorage.find(ImageArea.ADS, name).isPresent();
+                            });
+            return ImageArea.ADS.getUrlPrefix() + filename;
         } catch (IOException e) {
-            log.error("Ошибка сохранения изображения в {}", directory, e);
+            log.error("Ошибка сохранения изображения {}", image.getOriginalFilename(), e);
             throw new ImageSaveException(ExceptionMessages.IMAGE_FAILED_TO_SAVE, e);
         }
     }
 
-    public String saveAvatar(MultipartFile image, Integer userId, String urlPrefix) {
+    /**
+     * Сохраняет аватар пользователя под новым именем – идентификатор пользователя и SHA-256
+     * содержимого. Существующие файлы не перезаписываются, поэтому при откате транзакции старый
+     * аватар остаётся на месте; удалить его после фиксации должен вызывающий код через {@link
+     * #deleteAvatar(String)}.
+     *
+     * @param image загружаемый файл
+     * @param userId идентификатор пользователя
+     * @return относительный путь к файлу (например, "/avatars/1-3a7bd3e2.jpg")
+     * @throws InvalidImageException если содержимое не является изображением
+     */
+    public String saveAvatar(MultipartFile image, Integer userId) {
         validateImage(image);
         try {
-            String extension = getExtension(image.getOriginalFilename());
-            String filename = userId + extension;
-            Path uploadPath = Paths.get(avatarDir);
-            log.debug("Сохранение аватара для userId={} в директорию: {}, имя файла: {}", userId, uploadPath.toAbsolutePath(), filename);
-
-            Files.createDirectories(uploadPath);
-            Path filePath = uploadPath.resolve(filename);
-
-            // Сохраняем через Files.write (просто и надёжно)
-            byte[] bytes = image.getBytes();
-            Files.write(filePath, bytes);
-
-            // Проверяем, что файл действительно создан
-            if (Files.exists(filePath)) {
-                long size = Files.size(filePath);
-                log.info("Файл {} успешно создан, размер: {} байт", filePath.toAbsolutePath(), size);
-            } else {
-                log.error("Файл {} НЕ СУЩЕСТВУЕТ после записи!", filePath.toAbsolutePath());
-            }
-
-            return urlPrefix + filename;
+            // Идентификатор в имени не даёт двум пользователям с одинаковой картинкой делить файл,
+            // который удаляется вместе со сменой аватара любого из них
+            String filename =
+                    storeByContent(
+                            image,
+                            ImageArea.AVATARS,
+                            userId + "-",
+                            name -> imageStorage.find(ImageArea.AVATARS, name).isPresent());
+            return ImageArea.AVATARS.getUrlPrefix() + filename;
         } catch (IOException e) {
             log.error("Ошибка сохранения аватара для пользователя {}", userId, e);
             throw new ImageSaveException(ExceptionMessages.IMAGE_FAILED_TO_SAVE, e);
@@ -122,86 +242,325 @@ public class ImageService {
     }
 
     /**
-     * Удаляет файл по его относительному пути.
+     * Убирает ссылку на картинку объявления. Файл вместе с уменьшенными вариантами удаляется,
+     * когда на него не остаётся ссылок. Файлы, не учтённые в счётчиках, удаляются без проверки
+     * счётчика.
+     *
+     * <p>Счётчик меняется в текущей транзакции, а сам файл удаляется после её фиксации (см. {@link
+     * DeferredFileActions}): при откате файл остаётся на месте.
      *
-     * @param imagePath относительный путь (например, "/avatars/file.jpg")
-     * @param directory корневая директория (например, "./avatars")
+     * @param imagePath относительный путь (например, "/ads-images/file.jpg")
      */
-    public void deleteImage(String imagePath, String directory) {
+    public void deleteAdImage(String imagePath) {
         if (imagePath == null) return;
-        try {
-            Path fullPath = Paths.get(directory, Paths.get(imagePath).getFileName().toString());
-            Files.deleteIfExists(fullPath);
-        } catch (IOException e) {
-            log.warn("Failed to delete image file: {}", imagePath, e);
+        String filename = Paths.get(imagePath).getFileName().toString();
+        if (imageBlobRepository.decrementRefCount(filename) > 0
+                && imageBlobRepository.deleteIfUnreferenced(filename) == 0) {
+            log.debug("На изображение {} остались ссылки, файл не удаляется", filename);
+            return;
         }
+        deleteImage(ImageArea.ADS, imagePath);
     }
 
     /**
-     * Читает файл в массив байт.
+     * Удаляет аватар пользователя после фиксации текущей транзакции.
      *
-     * @param imagePath относительный путь к файлу
-     * @param directory корневая директория
-     * @return массив байт файла
+     * @param imagePath относительный путь (например, "/avatars/1.jpg")
      */
-    public byte[] readImageAsBytes(String imagePath, String directory) {
-        try {
-            Path fullPath = Paths.get(directory, Paths.get(imagePath).getFileName().toString());
-            return Files.readAllBytes(fullPath);
-        } catch (IOException e) {
-            log.error("Failed to read image file: {}", imagePath, e);
-            throw new RuntimeException(
-                    String.format(ExceptionMessages.IMAGE_FAILED_TO_READ, imagePath), e);
-        }
+    public void deleteAvatar(String imagePath) {
+        deleteImage(ImageArea.AVATARS, imagePath);
     }
 
     /**
-     * Загружает изображение из указанной директории.
+     * Находит изображение в хранилище. Содержимое файла не читается: вызывающая сторона получает
+     * {@link Resource}, который отдаётся клиенту потоково (в том числе по частям для запросов с
+     * заголовком Range).
      *
+     * @param area область хранения
      * @param filename имя файла
-     * @param directory директория (avatarDir или adImageDir)
-     * @return объект {@link ImageData} с содержимым и MIME-типом, или null если файл не найден
+     * @return объект {@link ImageData} с файлом, MIME-типом и валидаторами для условных запросов
      * @throws ImageNotFoundException исключение при ошибке "изображение не найдено"
      * @throws ImageReadException исключение при ошибке чтения изображения
      */
-    private ImageData loadImage(String filename, String directory) {
+    private ImageData loadImage(ImageArea area, String filename) {
+        Cache hotImages = cacheManager.getCache(CacheNames.HOT_IMAGES);
+        String cacheKey = cacheKey(area, filename);
+        ImageData cached = hotImages != null ? hotImages.get(cacheKey, ImageData.class) : null;
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Path path = Paths.get(directory, filename);
-            if (!Files.exists(path)) {
-                throw new ImageNotFoundException(
-                        String.format(ExceptionMessages.IMAGE_NOT_FOUND, filename));
+            ImageStorage.StoredImage stored =
+                    imageStorage
+                            .find(area, filename)
+                            .orElseThrow(
+                                    () ->
+                                            new ImageNotFoundException(
+                                                    String.format(
+                                                            ExceptionMessages.IMAGE_NOT_FOUND,
+                                                            filename)));
+            String contentType =
+                    MediaTypeFactory.getMediaType(filename)
+                            .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                            .toString();
+            long lastModified = stored.getLastModified();
+            long size = stored.getContentLength();
+            String eTag =
+                    "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+            if (hotImages == null || size > hotImageMaxEntrySize) {
+                return new ImageData(stored.getResource(), contentType, eTag, lastModified, size);
             }
-            byte[] content = Files.readAllBytes(path);
-            String contentType = Files.probeContentType(path);
-            if (contentType == null) {
-                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            byte[] content;
+            try (InputStream in = stored.getResource().getInputStream()) {
+                content = in.readAllBytes();
             }
-            return new ImageData(content, contentType);
+            ImageData imageData =
+                    new ImageData(
+                            new ByteArrayResource(content),
+                            contentType,
+                            eTag,
+                            lastModified,
+                            content.length);
+            hotImages.put(cacheKey, imageData);
+            return imageData;
         } catch (IOException e) {
             throw new ImageReadException(
                     String.format(ExceptionMessages.IMAGE_FAILED_TO_READ, filename), e);
         }
     }
 
-    private String getExtension(String filename) {
-        if (filename == null || !filename.contains(".")) {
-            return "";
+    /**
+     * Создаёт уменьшенные варианты картинки объявления рядом с оригиналом. Варианты кодируются
+     * заново, поэтому метаданные оригинала (EXIF и т.п.) в них не попадают. Если формат не
+     * поддерживается или картинка не распознана, варианты не создаются: клиенту будет отдан
+     * оригинал.
+     *
+     * <p>Метод выполняет декодирование и масштабирование и вызывается из фоновой очереди, а не из
+     * потока запроса.
+     *
+     * @param imagePath относительный путь к оригиналу (например, "/ads-images/file.jpg")
+     * @throws ImageSaveException если оригинал не удалось прочитать или вариант не удалось записать
+     */
+    public void createVariants(String imagePath) {
+        String filename = Paths.get(imagePath).getFileName().toString();
+        String formatName = VARIANT_FORMATS.get(getExtension(filename).toLowerCase(Locale.ROOT));
+        if (formatName == null) {
+            return;
+        }
+        try {
+            // Та же картинка уже загружалась к другому объявлению
+            String thumb = variantFilename(filename, ImageSize.THUMB);
+            if (imageStorage.find(ImageArea.ADS, thumb).isPresent()) {
+                log.debug("Варианты изображения {} уже созданы", filename);
+                return;
+            }
+            Optional<ImageStorage.StoredImage> original =
+                    imageStorage.find(ImageArea.ADS, filename);
+            if (original.isEmpty()) {
+                log.debug("Изображение {} уже удалено, варианты не созданы", filename);
+                return;
+            }
+            BufferedImage source;
+            try (InputStream in = original.get().getResource().getInputStream()) {
+                source = readWithinPixelLimit(in, filename);
+            }
+            if (source == null) {
+                return;
+            }
+            boolean opaque = JPEG_FORMAT.equals(formatName);
+            for (ImageSize size : ImageSize.values()) {
+                if (size == ImageSize.ORIGINAL) {
+                    continue;
+                }
+                BufferedImage scaled =
+                        ImageResizer.scaleToFit(source, size.getMaxDimension(), opaque);
+                if (scaled != null) {
+                    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                    ImageIO.write(scaled, formatName, encoded);
+                    imageStorage.save(
+                            ImageArea.ADS,
+                            variantFilename(filename, size),
+                            new ByteArrayInputStream(encoded.toByteArray()),
+                            encoded.size());
+                }
+            }
+        } catch (IOException e) {
+            throw new ImageSaveException(ExceptionMessages.IMAGE_FAILED_TO_SAVE, e);
         }
-        return filename.substring(filename.lastIndexOf("."));
     }
 
-    private void createDirectoryIfNotExists(String dir) {
-        Path path = Paths.get(dir);
-        if (!Files.exists(path)) {
+    /**
+     * Декодирует картинку, если число её пикселей не превышает {@code
+     * app.image.variants.max-pixels}. Размеры читаются из заголовка до декодирования: небольшой
+     * сжатый файл может распаковываться в изображение, которое не поместится в памяти.
+     *
+     * @return изображение или {@code null}, если формат не распознан или картинка слишком большая
+     */
+    private BufferedImage readWithinPixelLimit(InputStream in, String filename)
+            throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers =
+                    input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                log.debug("Изображение {} не распознано, варианты не созданы", filename);
+                return null;
+            }
+            ImageReader reader = readers.next();
             try {
-                Files.createDirectories(path);
-                log.info("Created directory: {}", path.toAbsolutePath());
-            } catch (IOException e) {
-                log.error("Failed to create directory: {}", path.toAbsolutePath(), e);
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > variantMaxPixels) {
+                    log.warn(
+                            "Изображение {} размером {}x{} превышает лимит {} пикселей, варианты"
+                                    + " не созданы",
+                            filename,
+                            width,
+                            height,
+                            variantMaxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
             }
         }
     }
 
+    /**
+     * Сохраняет загруженный файл под именем, выведенным из содержимого: префикс, SHA-256 в
+     * шестнадцатеричном виде и расширение по сигнатуре формата. Файл читается один раз: по пути во
+     * временный файл хранилища проверяется сигнатура и считается хеш. Затем временный файл
+     * публикуется под итоговым именем или удаляется, если {@code alreadyStored} сообщает, что такое
+     * содержимое уже сохранено. Файл целиком в памяти не держится.
+     *
+     * @return имя сохранённого файла
+     * @throws InvalidImageException если содержимое не является изображением
+     */
+    private String storeByContent(
+            MultipartFile image, ImageArea area, String namePrefix, StoredCheck alreadyStored)
+            throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(image.getInputStream(), digest)) {
+            byte[] header = in.readNBytes(ImageSignatures.HEADER_LENGTH);
+            String contentType = ImageSignatures.detectContentType(header);
+            if (contentType == null) {
+                throw new InvalidImageException(ExceptionMessages.INVALID_IMAGE_CONTENT);
+            }
+            InputStream content = new SequenceInputStream(new ByteArrayInputStream(header), in);
+            try (ImageStorage.StagedImage staged =
+                    imageStorage.stage(area, content, image.getSize())) {
+                String filename =
+                        namePrefix
+                                + String.format("%064x", new BigInteger(1, digest.digest()))
+                                + CONTENT_TYPE_EXTENSIONS.get(contentType);
+                if (alreadyStored.test(filename)) {
+                    log.debug("Изображение {} уже сохранено, копия не публикуется", filename);
+                } else {
+                    staged.publish(filename);
+                    log.info("Изображение успешно сохранено: {}", filename);
+                }
+                return filename;
+            }
+        }
+    }
+
+    /** Проверка, сохранено ли уже содержимое под вычисленным именем. */
+    @FunctionalInterface
+    private interface StoredCheck {
+        boolean test(String filename) throws IOException;
+    }
+
+    private void deleteImage(ImageArea area, String imagePath) {
+        if (imagePath == null) return;
+        String filename = Paths.get(imagePath).getFileName().toString();
+        deferredFileActions.afterCommit(
+                "delete image " + imagePath,
+                () -> {
+                    if (area == ImageArea.ADS) {
+                        deleteUnreferencedAdImage(filename);
+                    } else {
+                        deleteVariants(area, filename);
+                    }
+                });
+    }
+
+    /**
+     * Удаляет файлы картинки объявления, если её не загрузили заново после фиксации удаления.
+     * Запись в {@code image_blobs} захватывается тем же upsert, с которого начинается загрузка, и
+     * остаётся заблокированной до удаления файлов: параллельная загрузка того же содержимого
+     * дождётся конца транзакции и запишет файл заново.
+     */
+    private void deleteUnreferencedAdImage(String filename) throws IOException {
+        try {
+            transactionOperations.executeWithoutResult(
+                    status -> {
+                        imageBlobRepository.incrementRefCount(filename);
+                        boolean referenced =
+                                imageBlobRepository.findRefCount(filename).orElse(1) > 1;
+                        imageBlobRepository.decrementRefCount(filename);
+                        imageBlobRepository.deleteIfUnreferenced(filename);
+                        if (referenced) {
+                            log.debug(
+                                    "Изображение {} снова используется, файл не удаляется",
+                                    filename);
+                            return;
+                        }
+                        try {
+                            deleteVariants(ImageArea.ADS, filename);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void deleteVariants(ImageArea area, String filename) throws IOException {
+        for (ImageSize size : ImageSize.values()) {
+            String variant = variantFilename(filename, size);
+            imageStorage.delete(area, variant);
+            evictHotImage(area, variant);
+        }
+    }
+
+    /**
+     * Удаляет один файл из хранилища без учёта ссылок и убирает его из кэша. Используется
+     * сборщиком неиспользуемых файлов.
+     *
+     * @param area область хранения
+     * @param filename имя файла
+     * @throws IOException при ошибке обращения к хранилищу
+     */
+    public void deleteStoredFile(ImageArea area, String filename) throws IOException {
+        imageStorage.delete(area, filename);
+        evictHotImage(area, filename);
+    }
+
+    private void evictHotImage(ImageArea area, String filename) {
+        Cache hotImages = cacheManager.getCache(CacheNames.HOT_IMAGES);
+        if (hotImages != null) {
+            hotImages.evict(cacheKey(area, filename));
+        }
+    }
+
+    private static String cacheKey(ImageArea area, String filename) {
+        return area.getPrefix() + "/" + filename;
+    }
+
+    private String getExtension(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
+        }
+        return filename.substring(filename.lastIndexOf("."));
+    }
+
     /**
      * Валидация входящих изображений: пустой файл, неподдерживаемый тип файла и превышение разрешенного размера файла
      *
@@ -220,10 +579,24 @@ public class ImageService {
         }
     }
 
+    /** Картинка объявления, загруженная по запросу определённого размера. */
+    @Data
+    public static class AdImageVariant {
+        private final ImageData imageData;
+        /** {@code true}, если варианта нужного размера нет и вместо него загружен оригинал. */
+        private final boolean fallback;
+    }
+
     /** Вспомогательный класс для передачи данных изображения. */
     @Data
     public static class ImageData {
-        private final byte[] content;
+        private final Resource resource;
         private final String contentType;
+        /** ETag по времени изменения и размеру файла. */
+        private final String eTag;
+        /** Время последнего изменения файла в миллисекундах. */
+        private final long lastModified;
+        /** Размер содержимого в байтах. */
+        private final long contentLength;
     }
 }
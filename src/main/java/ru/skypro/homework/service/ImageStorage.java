@@ -0,0 +1,146 @@
+package ru.skypro.homework.service;
+
+import org.springframework.core.io.Resource;
+
+import ru.skypro.homework.dto.image.ImageArea;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище файлов картинок. {@link ImageService} проверяет и обрабатывает картинки, а где и как
+ * лежат байты, решает реализация: локальный диск ({@code app.image.storage.type=local}) или
+ * S3-совместимое хранилище ({@code app.image.storage.type=s3}).
+ *
+ * <p>Файл адресуется областью и именем. Имена внутри области уникальны; запись под существующим
+ * именем заменяет файл целиком, читатели не видят частично записанное содержимое.
+ */
+public interface ImageStorage {
+
+    /**
+     * Сохраняет содержимое под указанным именем, заменяя существующий файл.
+     *
+     * @param area область хранения
+     * @param filename имя файла
+     * @param content содержимое (поток читается до конца, но не закрывается)
+     * @param contentLength длина содержимого в байтах
+     * @throws IOException при ошибке записи
+     */
+    void save(ImageArea area, String filename, InputStream content, long contentLength)
+            throws IOException;
+
+    /**
+     * Сохраняет содержимое во временный файл области, имя которому назначается после записи. Так
+     * имя можно вывести из самого содержимого, прочитав поток один раз. Временные файлы не попадают
+     * в {@link #list(ImageArea)}.
+     *
+     * @param area область хранения
+     * @param content содержимое (поток читается до конца, но не закрывается)
+     * @param contentLength длина содержимого в байтах
+     * @return записанный файл; его нужно опубликовать через {@link StagedImage#publish(String)}
+     *     или закрыть
+     * @throws IOException при ошибке записи
+     */
+    StagedImage stage(ImageArea area, InputStream content, long contentLength) throws IOException;
+
+    /**
+     * Находит файл. Содержимое не читается: {@link StoredImage#getResource()} открывает поток
+     * только при отдаче клиенту.
+     *
+     * @param area область хранения
+     * @param filename имя файла
+     * @return файл или пустой {@link Optional}, если его нет
+     * @throws IOException при ошибке обращения к хранилищу
+     */
+    Optional<StoredImage> find(ImageArea area, String filename) throws IOException;
+
+    /**
+     * Удаляет файл, если он есть.
+     *
+     * @param area область хранения
+     * @param filename имя файла
+     * @throws IOException при ошибке обращения к хранилищу
+     */
+    void delete(ImageArea area, String filename) throws IOException;
+
+    /**
+     * Перечисляет файлы области. Список читается по мере обхода потока (каталог за каталогом или
+     * страница за страницей) и в памяти целиком не собирается. Ошибки чтения во время обхода
+     * выбрасываются как {@link java.io.UncheckedIOException}.
+     *
+     * <p>Поток нужно закрыть после использования.
+     *
+     * @param area область хранения
+     * @return поток файлов в произвольном порядке
+     * @throws IOException если перечисление не удалось начать
+     */
+    Stream<ListedImage> list(ImageArea area) throws IOException;
+
+    /**
+     * Временный файл из {@link #stage(ImageArea, InputStream, long)}. {@link #close()} удаляет его,
+     * если он не был опубликован.
+     */
+    interface StagedImage extends Closeable {
+
+        /**
+         * Публикует файл под указанным именем, заменяя существующий. Читатели видят либо прежний
+         * файл, либо новый целиком.
+         *
+         * @param filename имя файла
+         * @throws IOException при ошибке записи
+         */
+        void publish(String filename) throws IOException;
+    }
+
+    /** Файл из перечисления {@link #list(ImageArea)}. */
+    final class ListedImage {
+
+        private final String filename;
+        private final long lastModified;
+
+        public ListedImage(String filename, long lastModified) {
+            this.filename = filename;
+            this.lastModified = lastModified;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        /** Время последнего изменения в миллисекундах. */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /** Найденный в хранилище файл. */
+    final class StoredImage {
+
+        private final Resource resource;
+        private final long contentLength;
+        private final long lastModified;
+
+        public StoredImage(Resource resource, long contentLength, long lastModified) {
+            this.resource = resource;
+            this.contentLength = contentLength;
+            this.lastModified = lastModified;
+        }
+
+        public Resource getResource() {
+            return resource;
+        }
+
+        /** Размер файла в байтах. */
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        /** Время последнего изменения в миллисекундах. */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
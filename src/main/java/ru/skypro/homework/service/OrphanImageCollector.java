@@ -0,0 +1,274 @@
+package ru.skypro.homework.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.repository.AdRepository;
+import ru.skypro.homework.repository.ImageBlobRepository;
+import ru.skypro.homework.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Фоновый сборщик неиспользуемых файлов картинок. Файл остаётся без ссылки, если транзакция
+ * откатилась после записи файла, если удаление файла не удалось, а также при каскадном удалении
+ * пользователя вместе с объявлениями в БД.
+ *
+ * <p>Сборщик обходит хранилище потоком ({@link ImageStorage#list(ImageArea)}) и проверяет файлы
+ * порциями по {@code app.image.gc.batch-size}: одна порция – один запрос по индексу к {@code
+ * ads.image} или {@code users.image}. Ни список файлов, ни список путей из БД целиком в память не
+ * загружаются. Удаляются только файлы старше {@code app.image.gc.grace-period}, чтобы не задеть
+ * файл, транзакция которого ещё не завершена.
+ *
+ * <p>Для картинок объявлений источник истины – {@code ads.image}, а не счётчики {@code
+ * image_blobs}: каскадное удаление объявлений в БД счётчики не уменьшает. Перед удалением файла
+ * запись счётчика блокируется, ссылки из {@code ads} проверяются повторно, и запись удаляется в
+ * той же транзакции, что и файл. Параллельная загрузка того же содержимого ждёт этой транзакции и
+ * затем записывает файл заново.
+ *
+ * <p>Скорость обхода ограничена {@code app.image.gc.files-per-second}, чтобы сборщик не отнимал
+ * ввод-вывод у отдачи картинок. Обход запускается общим планировщиком через {@code
+ * app.image.gc.initial-delay} после старта и повторяется с паузой {@code app.image.gc.interval}.
+ * Число удалённых файлов публикуется в метрике {@code image.gc.deleted} с тегом {@code area}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.image.gc.enabled", havingValue = "true", matchIfMissing = true)
+public class OrphanImageCollector {
+
+    private final ImageStorage imageStorage;
+    private final ImageService imageService;
+    private final AdRepository adRepository;
+    private final UserRepository userRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final int filesPerSecond;
+
+    public OrphanImageCollector(
+            ImageStorage imageStorage,
+            ImageService imageService,
+            AdRepository adRepository,
+            UserRepository userRepository,
+            ImageBlobRepository imageBlobRepository,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.image.gc.grace-period}") Duration gracePeriod,
+            @Value("${app.image.gc.batch-size}") int batchSize,
+            @Value("${app.image.gc.files-per-second}") int filesPerSecond) {
+        this.imageStorage = imageStorage;
+        this.imageService = imageService;
+        this.adRepository = adRepository;
+        this.userRepository = userRepository;
+        this.imageBlobRepository = imageBlobRepository;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.filesPerSecond = filesPerSecond;
+    }
+
+    /** Обходит все области хранения. Ошибка в одной области не мешает обходу остальных. */
+    @Scheduled(
+            initialDelayString = "${app.image.gc.initial-delay}",
+            fixedDelayString = "${app.image.gc.interval}")
+    public void collectAll() {
+        for (ImageArea area : ImageArea.values()) {
+            try {
+                collect(area);
+            } catch (IOException | UncheckedIOException e) {
+                log.error("Orphan image collection failed for {}", area, e);
+            }
+        }
+    }
+
+    /**
+     * Удаляет из области файлы, на которые нет ссылок, старше периода ожидания.
+     *
+     * @param area область хранения
+     * @return число удалённых файлов
+     * @throws IOException если хранилище не удалось перечислить
+     */
+    public int collect(ImageArea area) throws IOException {
+        long cutoff = System.currentTimeMillis() - gracePeriod.toMillis();
+        int checked = 0;
+        int deleted = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Stream<ImageStorage.ListedImage> files = imageStorage.list(area)) {
+            Iterator<ImageStorage.ListedImage> iterator = files.iterator();
+            long batchStart = System.nanoTime();
+            int batchChecked = 0;
+            while (iterator.hasNext()) {
+                ImageStorage.ListedImage file = iterator.next();
+                checked++;
+                batchChecked++;
+                if (file.getLastModified() <= cutoff) {
+                    batch.add(file.getFilename());
+                }
+                // Порция считается по просмотренным файлам, а не по кандидатам на удаление: иначе
+                // обход области из одних свежих файлов ничем не ограничен
+                if (batchChecked == batchSize) {
+                    if (!batch.isEmpty()) {
+                        deleted += collectBatch(area, batch, cutoff);
+                        batch.clear();
+                    }
+                    if (!throttle(batchStart, batchChecked)) {
+                        break;
+                    }
+                    batchStart = System.nanoTime();
+                    batchChecked = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                deleted += collectBatch(area, batch, cutoff);
+            }
+        }
+        meterRegistry
+                .counter("image.gc.deleted", "area", area.name().toLowerCase(Locale.ROOT))
+                .increment(deleted);
+        log.info("Orphan image collection in {}: checked {}, deleted {}", area, checked, deleted);
+        return deleted;
+    }
+
+    private int collectBatch(ImageArea area, List<String> filenames, long cutoff) {
+        Set<String> referenced = referencedFilenames(area, filenames);
+        int deleted = 0;
+        for (String filename : filenames) {
+            if (referenced.contains(filename)) {
+                continue;
+            }
+            try {
+                boolean removed =
+                        area == ImageArea.ADS
+                                ? deleteAdImage(filename, cutoff)
+                                : deleteIfOld(area, filename, cutoff);
+                if (removed) {
+                    deleted++;
+                    log.debug("Deleted orphan image {} from {}", filename, area);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete orphan image {} from {}", filename, area, e);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Удаляет файл картинки объявления (оригинал или вариант), если ни одно объявление не
+     * ссылается на исходный файл. Запись счётчика исходного файла блокируется и удаляется в той же
+     * транзакции, что и файл.
+     *
+     * @return {@code true}, если файл удалён
+     */
+    private boolean deleteAdImage(String filename, long cutoff) throws IOException {
+        String original = imageService.originalFilename(filename);
+        String path = ImageArea.ADS.getUrlPrefix() + original;
+        try {
+            Boolean removed =
+                    transactionTemplate.execute(
+                            status -> {
+                                imageBlobRepository.lockRefCount(original);
+                                // Новый запрос после блокировки видит объявления, зафиксированные
+                                // загрузкой, которая держала запись
+                                if (!adRepository.findImagesIn(List.of(path)).isEmpty()) {
+                                    return false;
+                                }
+                                imageBlobRepository.deleteByFilename(original);
+                                try {
+                                    return deleteIfOld(ImageArea.ADS, filename, cutoff);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            });
+            return Boolean.TRUE.equals(removed);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Удаляет файл, если его не записали заново, пока проверялась порция. */
+    private boolean deleteIfOld(ImageArea area, String filename, long cutoff) throws IOException {
+        Optional<ImageStorage.StoredImage> current = imageStorage.find(area, filename);
+        if (current.isEmpty() || current.get().getLastModified() > cutoff) {
+            return false;
+        }
+        imageService.deleteStoredFile(area, filename);
+        return true;
+    }
+
+    /**
+     * Возвращает имена файлов порции, на которые есть ссылки. Для вариантов картинок объявлений
+     * проверяется исходный файл.
+     */
+    private Set<String> referencedFilenames(ImageArea area, List<String> filenames) {
+        Set<String> originals =
+                area == ImageArea.ADS
+                        ? filenames.stream()
+                                .map(imageService::originalFilename)
+                                .collect(Collectors.toSet())
+                        : Set.copyOf(filenames);
+        Set<String> paths =
+                originals.stream()
+                        .map(original -> area.getUrlPrefix() + original)
+                        .collect(Collectors.toSet());
+        List<String> referencedPaths =
+                area == ImageArea.ADS
+                        ? adRepository.findImagesIn(paths)
+                        : userRepository.findImagesIn(paths);
+        Set<String> referencedOriginals =
+                referencedPaths.stream()
+                        .map(referenced -> referenced.substring(area.getUrlPrefix().length()))
+                        .collect(Collectors.toSet());
+        return filenames.stream()
+                .filter(
+                        name ->
+                                referencedOriginals.contains(
+                                        area == ImageArea.ADS
+                                                ? imageService.originalFilename(name)
+                                                : name))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Выдерживает паузу так, чтобы средняя скорость обхода не превышала заданную.
+     *
+     * @param batchStartNanos время начала порции ({@link System#nanoTime()})
+     * @param checked число файлов, просмотренных с начала порции
+     * @return {@code false}, если поток прерван и обход нужно остановить
+     */
+    private boolean throttle(long batchStartNanos, int checked) {
+        long minNanos = Duration.ofSeconds(1).toNanos() * checked / filesPerSecond;
+        long remaining = minNanos - (System.nanoTime() - batchStartNanos);
+        if (remaining <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(remaining).toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package ru.skypro.homework.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ru.skypro.homework.constants.ExceptionMessages;
+import ru.skypro.homework.dto.auth.TokenDto;
+import ru.skypro.homework.exception.InvalidTokenException;
+import ru.skypro.homework.model.UsersDao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Выпуск и проверка подписанных токенов в формате JWT (HS256) без внешнего провайдера
+ * идентификации.
+ *
+ * <p>Токен доступа живёт недолго ({@code app.security.token.access-ttl}) и проверяется только по
+ * подписи и сроку действия – без обращения к БД и BCrypt. Токен обновления живёт дольше ({@code
+ * app.security.token.refresh-ttl}) и содержит отпечаток хеша пароля, поэтому после смены пароля
+ * обновить пару по старому токену нельзя.
+ *
+ * <p>Ключ подписи задаётся свойством {@code app.security.token.secret}. Если оно пустое, ключ
+ * генерируется при старте, и токены перестают действовать после перезапуска.
+ */
+@Slf4j
+@Service
+public class TokenService {
+
+    public static final String TOKEN_TYPE = "Bearer";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int GENERATED_KEY_LENGTH = 32;
+    private static final int PASSWORD_STAMP_LENGTH = 12;
+
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+
+    private static final String CLAIM_SUBJECT = "sub";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_TYPE = "typ";
+    private static final String CLAIM_ISSUED_AT = "iat";
+    private static final String CLAIM_EXPIRES_AT = "exp";
+    private static final String CLAIM_PASSWORD_STAMP = "pst";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER =
+            ENCODER.encodeToString(
+                    "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    public TokenService(
+            ObjectMapper objectMapper,
+            @Value("${app.security.token.secret:}") String secret,
+            @Value("${app.security.token.access-ttl}") Duration accessTtl,
+            @Value("${app.security.token.refresh-ttl}") Duration refreshTtl) {
+        this.objectMapper = objectMapper;
+        this.key = new SecretKeySpec(secretBytes(secret), HMAC_ALGORITHM);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+    }
+
+    /**
+     * Выпускает пару токенов для пользователя.
+     *
+     * @param user пользователь, прошедший проверку логина и пароля
+     * @return токен доступа, токен обновления и время жизни токена доступа
+     */
+    public TokenDto issue(UsersDao user) {
+        Instant now = Instant.now();
+
+        ObjectNode access = claims(user, ACCESS, now, accessTtl);
+        ObjectNode refresh = claims(user, REFRESH, now, refreshTtl);
+        refresh.put(CLAIM_PASSWORD_STAMP, passwordStamp(user.getPassword()));
+
+        return new TokenDto(sign(access), sign(refresh), TOKEN_TYPE, accessTtl.getSeconds());
+    }
+
+    /**
+     * Проверяет токен доступа.
+     *
+     * @param token токен из заголовка {@code Authorization}
+     * @return данные пользователя из токена
+     * @throws InvalidTokenException если подпись неверна, токен истёк, это не токен доступа или в
+     *     нём нет идентификатора пользователя
+     */
+    public Claims parseAccessToken(String token) {
+        JsonNode payload = verify(token, ACCESS);
+        JsonNode userId = payload.path(CLAIM_USER_ID);
+        if (!userId.isIntegralNumber()) {
+            throw invalid();
+        }
+        return new Claims(
+                payload.path(CLAIM_SUBJECT).asText(),
+                payload.path(CLAIM_ROLE).asText(),
+                userId.asInt());
+    }
+
+    /**
+     * Проверяет токен обновления для указанного пользователя.
+     *
+     * @param token токен обновления
+     * @param user пользователь из БД, найденный по {@link #refreshTokenSubject(String)}
+     * @throws InvalidTokenException если токен недействителен или пароль был изменён после его
+     *     выдачи
+     */
+    public void verifyRefreshToken(String token, UsersDao user) {
+        JsonNode payload = verify(token, REFRESH);
+        byte[] expected = passwordStamp(user.getPassword()).getBytes(StandardCharsets.UTF_8);
+        byte[] actual =
+                payload.path(CLAIM_PASSWORD_STAMP).asText().getBytes(StandardCharsets.UTF_8);
+        if (!user.getEmail().equals(payload.path(CLAIM_SUBJECT).asText())
+                || !MessageDigest.isEqual(expected, actual)) {
+            throw invalid();
+        }
+    }
+
+    /**
+     * Возвращает email пользователя из токена обновления после проверки подписи и срока действия.
+     *
+     * @param token токен обновления
+     * @return email пользователя
+     * @throws InvalidTokenException если токен недействителен
+     */
+    public String refreshTokenSubject(String token) {
+        return verify(token, REFRESH).path(CLAIM_SUBJECT).asText();
+    }
+
+    private ObjectNode claims(UsersDao user, String type, Instant now, Duration ttl) {
+        ObjectNode claims = objectMapper.createObjectNode();
+        claims.put(CLAIM_SUBJECT, user.getEmail());
+        claims.put(CLAIM_ROLE, user.getRole().name());
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_TYPE, type);
+        claims.put(CLAIM_ISSUED_AT, now.getEpochSecond());
+        claims.put(CLAIM_EXPIRES_AT, now.plus(ttl).getEpochSecond());
+        return claims;
+    }
+
+    private String sign(ObjectNode claims) {
+        try {
+            String unsigned =
+                    HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return unsigned + "." + ENCODER.encodeToString(hmac(unsigned));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode verify(String token, String expectedType) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 3 || !HEADER.equals(parts[0])) {
+            throw invalid();
+        }
+        JsonNode payload;
+        try {
+            byte[] signature = DECODER.decode(parts[2]);
+            if (!MessageDigest.isEqual(signature, hmac(parts[0] + "." + parts[1]))) {
+                throw invalid();
+            }
+            payload = objectMapper.readTree(DECODER.decode(parts[1]));
+        } catch (IllegalArgumentException | IOException e) {
+            throw invalid();
+        }
+        if (!expectedType.equals(payload.path(CLAIM_TYPE).asText())
+                || payload.path(CLAIM_EXPIRES_AT).asLong() <= Instant.now().getEpochSecond()) {
+            throw invalid();
+        }
+        return payload;
+    }
+
+    private String passwordStamp(String passwordHash) {
+        byte[] digest = hmac(passwordHash);
+        return ENCODER.encodeToString(Arrays.copyOf(digest, PASSWORD_STAMP_LENGTH));
+    }
+
+    private byte[] hmac(String value) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        log.warn(
+                "app.security.token.secret is not set, using a random key: tokens will not"
+                        + " survive a restart");
+        byte[] generated = new byte[GENERATED_KEY_LENGTH];
+        new SecureRandom().nextBytes(generated);
+        return generated;
+    }
+
+    private static InvalidTokenException invalid() {
+        return new InvalidTokenException(ExceptionMessages.INVALID_TOKEN);
+    }
+
+    /** Данные пользователя, извлечённые из проверенного токена доступа. */
+    public static final class Claims {
+
+        private final String username;
+        private final String role;
+        private final Integer userId;
+
+        private Claims(String username, String role, Integer userId) {
+            this.username = username;
+            this.role = role;
+            this.userId = userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public Integer getUserId() {
+            return userId;
+        }
+    }
+}
@@ -3,34 +3,50 @@ package ru.skypro.homework.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import ru.skypro.homework.constants.CacheNames;
 import ru.skypro.homework.constants.ExceptionMessages;
-import ru.skypro.homework.constants.UrlPrefixConstants;
 import ru.skypro.homework.dto.ad.AdDto;
 import ru.skypro.homework.dto.ad.AdsDto;
 import ru.skypro.homework.dto.ad.CreateOrUpdateAdDto;
 import ru.skypro.homework.dto.ad.ExtendedAdDto;
 import ru.skypro.homework.dto.auth.Role;
+import ru.skypro.homework.dto.image.ImageDto;
+import ru.skypro.homework.dto.image.ImageStatus;
 import ru.skypro.homework.exception.AdNotFoundException;
 import ru.skypro.homework.exception.UnauthorizedAccessException;
 import ru.skypro.homework.mapper.AdMapper;
 import ru.skypro.homework.model.AdsDao;
 import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.AdRepository;
+import ru.skypro.homework.repository.projection.AdSearchResult;
+import ru.skypro.homework.repository.projection.AdOwnership;
+import ru.skypro.homework.repository.projection.AdSummary;
 import ru.skypro.homework.service.AdService;
 import ru.skypro.homework.service.CurrentUserService;
+import ru.skypro.homework.service.ImageProcessingService;
 import ru.skypro.homework.service.ImageService;
+import ru.skypro.homework.util.CursorCodec;
 
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Реализация сервиса {@link AdService}. Обеспечивает CRUD-операции с объявлениями, проверку прав
  * доступа (автор или администратор) и управление изображениями через {@link ImageService}.
+ * Уменьшенные варианты картинок создаются после фиксации транзакции в {@link
+ * ImageProcessingService}.
  *
  * @see AdService
  * @see AdRepository
@@ -49,14 +65,13 @@ public class AdServiceImpl implements AdService {
 
     private final CurrentUserService currentUserService;
     private final ImageService imageService;
-
-    @Value("${app.image.ad-dir}")
-    private String adImageDir;
+    private final ImageProcessingService imageProcessingService;
+    private final CacheManager cacheManager;
 
     @Override
     @Transactional(readOnly = true)
     public AdsDto getAllAds() {
-        List<AdsDao> ads = adRepository.findAll();
+        List<AdSummary> ads = adRepository.findAllSummaries();
         List<AdDto> adDtos = ads.stream().map(adMapper::toAdDto).collect(Collectors.toList());
         AdsDto result = new AdsDto();
         result.setCount(adDtos.size());
@@ -64,16 +79,66 @@ public class AdServiceImpl implements AdService {
         return result;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public AdsDto getAdsPage(String cursor, int limit) {
+        int afterPk = cursor == null ? 0 : CursorCodec.decode(cursor, 1).intAt(0);
+        // Запрашиваем на одну запись больше, чтобы без COUNT(*) узнать, есть ли следующая страница
+        List<AdSummary> ads = adRepository.findSummariesAfter(afterPk, PageRequest.of(0, limit + 1));
+        boolean hasNext = ads.size() > limit;
+        List<AdDto> adDtos =
+                ads.stream().limit(limit).map(adMapper::toAdDto).collect(Collectors.toList());
+        AdsDto result = new AdsDto();
+        result.setCount(adDtos.size());
+        result.setResults(adDtos);
+        if (hasNext) {
+            result.setNext(CursorCodec.encode(adDtos.get(adDtos.size() - 1).getPk()));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AdsDto searchAds(String query, String cursor, int limit) {
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<AdSearchResult> ads;
+        if (cursor == null) {
+            ads = adRepository.search(query, page);
+        } else {
+            CursorCodec.Values after = CursorCodec.decode(cursor, 2);
+            ads = adRepository.searchAfter(query, after.floatAt(0), after.intAt(1), page);
+        }
+        boolean hasNext = ads.size() > limit;
+        List<AdSearchResult> pageAds = hasNext ? ads.subList(0, limit) : ads;
+        AdsDto result = new AdsDto();
+        result.setCount(pageAds.size());
+        result.setResults(pageAds.stream().map(adMapper::toAdDto).collect(Collectors.toList()));
+        if (hasNext) {
+            AdSearchResult last = pageAds.get(pageAds.size() - 1);
+            result.setNext(CursorCodec.encode(last.getRank(), last.getPk()));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllAds(Consumer<AdDto> consumer) {
+        try (Stream<AdSummary> ads = adRepository.streamAllSummaries()) {
+            ads.map(adMapper::toAdDto).forEach(consumer);
+        }
+    }
+
     @Override
     public AdDto addAd(String email, CreateOrUpdateAdDto properties, MultipartFile image) {
         UsersDao author = currentUserService.getUserByEmail(email);
-        String imagePath =
-                imageService.saveImage(image, adImageDir, UrlPrefixConstants.URL_PREFIX_ADS_IMAGES);
+        String imagePath = imageService.saveAdImage(image);
 
         AdsDao ad = adMapper.toAdEntity(properties);
         ad.setAuthor(author);
         ad.setImage(imagePath);
+        ad.setImageStatus(ImageStatus.PENDING);
         AdsDao savedAd = adRepository.save(ad);
+        imageProcessingService.submitVariants(savedAd.getPk(), imagePath);
 
         log.info("Ad created with id: {} by user: {}", savedAd.getPk(), email);
         return adMapper.toAdDto(savedAd);
@@ -81,27 +146,36 @@ public class AdServiceImpl implements AdService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.AD_CARDS, key = "#id")
     public ExtendedAdDto getAd(Integer id) {
         AdsDao ad = getAdById(id);
         return adMapper.toExtendedAdDto(ad);
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheNames.AD_CARDS, key = "#id")
     public void removeAd(Integer id, String email) {
-        AdsDao ad = getAdById(id);
-        checkPermissions(ad, email);
+        AdOwnership ad =
+                adRepository
+                        .findOwnershipByPk(id)
+                        .orElseThrow(
+                                () ->
+                                        new AdNotFoundException(
+                                                String.format(ExceptionMessages.AD_NOT_FOUND, id)));
+        checkPermissions(ad.getAuthorId());
 
         if (ad.getImage() != null) {
-            imageService.deleteImage(ad.getImage(), adImageDir);
+            imageService.deleteAdImage(ad.getImage());
         }
-        adRepository.delete(ad);
+        adRepository.deleteAdByPk(id);
         log.info("Ad deleted with id: {} by user: {}", id, email);
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheNames.AD_CARDS, key = "#id")
     public AdDto updateAd(Integer id, String email, CreateOrUpdateAdDto updateAd) {
         AdsDao ad = getAdById(id);
-        checkPermissions(ad, email);
+        checkPermissions(ad.getAuthor().getId());
         adMapper.updateAdFromDto(updateAd, ad);
         AdsDao updatedAd = adRepository.save(ad);
         log.info("Ad updated with id: {} by user: {}", id, email);
@@ -111,8 +185,8 @@ public class AdServiceImpl implements AdService {
     @Override
     @Transactional(readOnly = true)
     public AdsDto getAdsMe() {
-        UsersDao author = currentUserService.getCurrentUser(); // получаем текущего пользователя
-        List<AdsDao> ads = adRepository.findByAuthorId(author.getId());
+        List<AdSummary> ads =
+                adRepository.findSummariesByAuthorId(currentUserService.getCurrentUserId());
         List<AdDto> adDtos = ads.stream().map(adMapper::toAdDto).collect(Collectors.toList());
         AdsDto result = new AdsDto();
         result.setCount(adDtos.size());
@@ -121,21 +195,60 @@ public class AdServiceImpl implements AdService {
     }
 
     @Override
-    public byte[] updateImage(Integer id, String email, MultipartFile image) {
+    @Transactional(readOnly = true)
+    public AdsDto getAdsMePage(String cursor, int limit) {
+        Integer authorId = currentUserService.getCurrentUserId();
+        int afterPk = cursor == null ? 0 : CursorCodec.decode(cursor, 1).intAt(0);
+        List<AdSummary> ads =
+                adRepository.findSummariesByAuthorIdAfter(
+                        authorId, afterPk, PageRequest.of(0, limit + 1));
+        boolean hasNext = ads.size() > limit;
+        List<AdDto> adDtos =
+                ads.stream().limit(limit).map(adMapper::toAdDto).collect(Collectors.toList());
+        AdsDto result = new AdsDto();
+        // Общее число объявлений автора считается только по индексу idx_ads_user_id_pk
+        result.setCount(Math.toIntExact(adRepository.countByAuthorId(authorId)));
+        result.setResults(adDtos);
+        if (hasNext) {
+            result.setNext(CursorCodec.encode(adDtos.get(adDtos.size() - 1).getPk()));
+        }
+        return result;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheNames.AD_CARDS, key = "#id")
+    public ImageDto updateImage(Integer id, String email, MultipartFile image) {
         AdsDao ad = getAdById(id);
-        checkPermissions(ad, email);
+        checkPermissions(ad.getAuthor().getId());
 
-        String newImagePath =
-                imageService.saveImage(image, adImageDir, UrlPrefixConstants.URL_PREFIX_ADS_IMAGES);
+        String newImagePath = imageService.saveAdImage(image);
         if (ad.getImage() != null) {
-            imageService.deleteImage(ad.getImage(), adImageDir);
+            imageService.deleteAdImage(ad.getImage());
         }
 
         ad.setImage(newImagePath);
+        ad.setImageStatus(ImageStatus.PENDING);
         adRepository.save(ad);
+        imageProcessingService.submitVariants(id, newImagePath);
         log.info("Image updated for ad id: {} by user: {}", id, email);
 
-        return imageService.readImageAsBytes(newImagePath, adImageDir);
+        ImageDto result = new ImageDto();
+        result.setUrl(newImagePath);
+        result.setSize(image.getSize());
+        result.setEtag(
+                imageService.adImageETag(Paths.get(newImagePath).getFileName().toString()));
+        return result;
+    }
+
+    @Override
+    public void evictAuthorAdCards(Integer authorId) {
+        Cache adCards = cacheManager.getCache(CacheNames.AD_CARDS);
+        if (adCards == null) {
+            return;
+        }
+        List<Integer> adIds = adRepository.findPksByAuthorId(authorId);
+        adIds.forEach(adCards::evict);
+        log.debug("Evicted {} ad cards of author id: {}", adIds.size(), authorId);
     }
 
     private AdsDao getAdById(Integer id) {
@@ -147,10 +260,10 @@ public class AdServiceImpl implements AdService {
                                         String.format(ExceptionMessages.AD_NOT_FOUND, id)));
     }
 
-    private void checkPermissions(AdsDao ad, String email) {
-        UsersDao user = currentUserService.getUserByEmail(email);
-        boolean isAuthor = ad.getAuthor().getId().equals(user.getId());
-        boolean isAdmin = user.getRole() == Role.ADMIN;
+    private void checkPermissions(Integer authorId) {
+        // Идентификатор и роль берутся из principal: проверка прав не обращается к БД
+        boolean isAuthor = authorId.equals(currentUserService.getCurrentUserId());
+        boolean isAdmin = currentUserService.hasCurrentRole(Role.ADMIN);
         if (!isAuthor && !isAdmin) {
             throw new UnauthorizedAccessException(
                     String.format(ExceptionMessages.UNAUTHORIZED_ACCESS, "ad"));
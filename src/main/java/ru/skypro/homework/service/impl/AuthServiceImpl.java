@@ -13,16 +13,19 @@ import org.springframework.stereotype.Service;
 
 import ru.skypro.homework.constants.ExceptionMessages;
 import ru.skypro.homework.dto.auth.RegisterDto;
+import ru.skypro.homework.dto.auth.TokenDto;
+import ru.skypro.homework.exception.InvalidTokenException;
 import ru.skypro.homework.exception.UserAlreadyExistsException;
 import ru.skypro.homework.mapper.UserMapper;
 import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.UserRepository;
 import ru.skypro.homework.service.AuthService;
+import ru.skypro.homework.service.TokenService;
 
 /**
  * Реализация сервиса {@link AuthService}. Использует {@link AuthenticationManager} для
  * аутентификации, {@link UserRepository} для проверки существования пользователя, {@link
- * PasswordEncoder} для шифрования пароля при регистрации.
+ * PasswordEncoder} для шифрования пароля при регистрации, {@link TokenService} для выдачи токенов.
  *
  * @see AuthService
  * @see UserRepository
@@ -38,9 +41,10 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final TokenService tokenService;
 
     @Override
-    public void login(String userName, String password) {
+    public TokenDto login(String userName, String password) {
         try {
             Authentication auth =
                     authenticationManager.authenticate(
@@ -51,6 +55,22 @@ public class AuthServiceImpl implements AuthService {
             log.warn("Failed login attempt for user: {}", userName);
             throw e; // пробрасываем дальше
         }
+        return tokenService.issue(findUser(userName));
+    }
+
+    @Override
+    public TokenDto refresh(String refreshToken) {
+        String userName = tokenService.refreshTokenSubject(refreshToken);
+        UsersDao user = findUser(userName);
+        tokenService.verifyRefreshToken(refreshToken, user);
+        log.debug("Tokens refreshed for user {}", userName);
+        return tokenService.issue(user);
+    }
+
+    private UsersDao findUser(String userName) {
+        return userRepository
+                .findByEmail(userName)
+                .orElseThrow(() -> new InvalidTokenException(ExceptionMessages.INVALID_TOKEN));
     }
 
     @Override
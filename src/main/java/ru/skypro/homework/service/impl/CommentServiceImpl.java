@@ -3,6 +3,7 @@ package ru.skypro.homework.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,9 +21,14 @@ import ru.skypro.homework.model.CommentsDao;
 import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.AdRepository;
 import ru.skypro.homework.repository.CommentRepository;
+import ru.skypro.homework.repository.projection.CommentSummary;
 import ru.skypro.homework.service.CommentService;
 import ru.skypro.homework.service.CurrentUserService;
+import ru.skypro.homework.util.CursorCodec;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -42,6 +48,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class CommentServiceImpl implements CommentService {
 
+    private static final LocalDateTime EPOCH = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+
     private final CommentRepository commentRepository;
     private final AdRepository adRepository;
     private final CommentMapper commentMapper;
@@ -51,10 +59,12 @@ public class CommentServiceImpl implements CommentService {
     @Override
     @Transactional(readOnly = true)
     public CommentsDto getComments(Integer adId) {
-        if (!adRepository.existsById(adId)) {
+        List<CommentSummary> comments = commentRepository.findSummariesByAdPk(adId);
+        // Существование объявления проверяем только для пустого результата: непустой список
+        // комментариев читается одним запросом
+        if (comments.isEmpty() && !adRepository.existsById(adId)) {
             throw new AdNotFoundException(String.format(ExceptionMessages.AD_NOT_FOUND, adId));
         }
-        List<CommentsDao> comments = commentRepository.findByAdPkOrderByCreatedAtDesc(adId);
         List<CommentDto> commentDtos =
                 comments.stream().map(commentMapper::toCommentDto).collect(Collectors.toList());
         CommentsDto result = new CommentsDto();
@@ -63,6 +73,44 @@ public class CommentServiceImpl implements CommentService {
         return result;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CommentsDto getCommentsPage(Integer adId, String cursor, int limit) {
+        // Счётчик на строке объявления заодно проверяет, что объявление существует
+        int count =
+                adRepository
+                        .findCommentCountByPk(adId)
+                        .orElseThrow(
+                                () ->
+                                        new AdNotFoundException(
+                                                String.format(
+                                                        ExceptionMessages.AD_NOT_FOUND, adId)));
+        // Запрашиваем на одну запись больше, чтобы без COUNT(*) узнать, есть ли следующая страница
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<CommentSummary> comments;
+        if (cursor == null) {
+            comments = commentRepository.findSummariesByAdPk(adId, page);
+        } else {
+            CursorCodec.Values before = CursorCodec.decode(cursor, 2);
+            comments =
+                    commentRepository.findSummariesByAdPkBefore(
+                            adId, fromEpochMicros(before.longAt(0)), before.intAt(1), page);
+        }
+        boolean hasNext = comments.size() > limit;
+        List<CommentSummary> pageComments = hasNext ? comments.subList(0, limit) : comments;
+        CommentsDto result = new CommentsDto();
+        result.setCount(count);
+        result.setResults(
+                pageComments.stream()
+                        .map(commentMapper::toCommentDto)
+                        .collect(Collectors.toList()));
+        if (hasNext) {
+            CommentSummary last = pageComments.get(pageComments.size() - 1);
+            result.setNext(CursorCodec.encode(toEpochMicros(last.getCreatedAt()), last.getPk()));
+        }
+        return result;
+    }
+
     @Override
     public CommentDto addComment(Integer adId, CreateOrUpdateCommentDto createComment) {
         UsersDao author = currentUserService.getCurrentUser();
@@ -72,6 +120,7 @@ public class CommentServiceImpl implements CommentService {
         comment.setAuthor(author);
         comment.setAd(ad);
         CommentsDao savedComment = commentRepository.save(comment);
+        adRepository.addToCommentCount(adId, 1);
 
         log.info(
                 "Comment added with id: {} to ad: {} by user: {}",
@@ -87,6 +136,7 @@ public class CommentServiceImpl implements CommentService {
         CommentsDao comment = getCommentByIdAndAdId(commentId, adId);
         checkPermissions(comment, currentUser);
         commentRepository.delete(comment);
+        adRepository.addToCommentCount(adId, -1);
         log.info(
                 "Comment deleted with id: {} from ad: {} by user: {}",
                 commentId,
@@ -110,6 +160,15 @@ public class CommentServiceImpl implements CommentService {
         return commentMapper.toCommentDto(updatedComment);
     }
 
+    /** Дата в микросекундах (точность TIMESTAMP в PostgreSQL) для курсора. */
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(EPOCH, dateTime);
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
     private AdsDao getAdById(Integer adId) {
         return adRepository
                 .findById(adId)
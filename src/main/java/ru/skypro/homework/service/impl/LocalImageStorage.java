@@ -0,0 +1,221 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.DigestUtils;
+
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.service.ImageStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище картинок на локальном диске. Файлы раскладываются по двум уровням подкаталогов по
+ * первым символам MD5 от имени файла ({@code ab/cd/<имя>}), поэтому в одном каталоге оказывается
+ * не больше нескольких сотен файлов даже при миллионах объявлений.
+ *
+ * <p>Файлы, сохранённые до перехода на подкаталоги, лежат прямо в корне области. Они находятся и
+ * удаляются так же, как новые, а перенести их можно через {@link #migrateFlatFiles(ImageArea)}.
+ */
+@Slf4j
+public class LocalImageStorage implements ImageStorage {
+
+    private static final String TEMP_PREFIX = ".upload-";
+
+    private final Map<ImageArea, Path> roots;
+
+    /**
+     * @param roots корневой каталог для каждой области
+     */
+    public LocalImageStorage(Map<ImageArea, Path> roots) {
+        this.roots = new EnumMap<>(roots);
+        this.roots.values().forEach(LocalImageStorage::createDirectory);
+    }
+
+    /**
+     * Возвращает путь файла в разложенной по подкаталогам структуре.
+     *
+     * @param root корневой каталог области
+     * @param filename имя файла
+     * @return путь вида {@code root/ab/cd/filename}
+     */
+    public static Path shardedPath(Path root, String filename) {
+        String hash = DigestUtils.md5DigestAsHex(filename.getBytes(StandardCharsets.UTF_8));
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(filename);
+    }
+
+    @Override
+    public void save(ImageArea area, String filename, InputStream content, long contentLength)
+            throws IOException {
+        Path target = shardedPath(root(area), filename);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), TEMP_PREFIX, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                content.transferTo(out);
+            }
+            moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        // Копия в старом месте больше не актуальна
+        Files.deleteIfExists(root(area).resolve(filename));
+    }
+
+    @Override
+    public StagedImage stage(ImageArea area, InputStream content, long contentLength)
+            throws IOException {
+        Path temp = Files.createTempFile(root(area), TEMP_PREFIX, ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            content.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new StagedImage() {
+            @Override
+            public void publish(String filename) throws IOException {
+                Path target = shardedPath(root(area), filename);
+                Files.createDirectories(target.getParent());
+                moveAtomically(temp, target);
+                Files.deleteIfExists(root(area).resolve(filename));
+            }
+
+            @Override
+            public void close() throws IOException {
+                Files.deleteIfExists(temp);
+            }
+        };
+    }
+
+    @Override
+    public Optional<StoredImage> find(ImageArea area, String filename) throws IOException {
+        Path path = shardedPath(root(area), filename);
+        if (!Files.exists(path)) {
+            path = root(area).resolve(filename);
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(
+                    new StoredImage(
+                            new FileSystemResource(path),
+                            attributes.size(),
+                            attributes.lastModifiedTime().toMillis()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(ImageArea area, String filename) throws IOException {
+        Files.deleteIfExists(shardedPath(root(area), filename));
+        Files.deleteIfExists(root(area).resolve(filename));
+    }
+
+    @Override
+    public Stream<ListedImage> list(ImageArea area) throws IOException {
+        // Files.walk обходит дерево лениво, не собирая список файлов целиком
+        return Files.walk(root(area))
+                .filter(path -> !path.getFileName().toString().startsWith(TEMP_PREFIX))
+                .map(LocalImageStorage::listedImage)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Переносит файлы из корня области в подкаталоги. Перенос идёт переименованием в пределах
+     * одной файловой системы, поэтому безопасен при работающем приложении: файл всегда доступен
+     * либо по старому, либо по новому пути.
+     *
+     * @param area область хранения
+     * @return число перенесённых файлов
+     * @throws IOException если каталог области не удалось прочитать
+     */
+    public int migrateFlatFiles(ImageArea area) throws IOException {
+        Path root = root(area);
+        List<Path> flatFiles;
+        try (Stream<Path> files = Files.list(root)) {
+            flatFiles =
+                    files.filter(Files::isRegularFile)
+                            .filter(path -> !path.getFileName().toString().startsWith(TEMP_PREFIX))
+                            .collect(Collectors.toList());
+        }
+        int moved = 0;
+        for (Path file : flatFiles) {
+            Path target = shardedPath(root, file.getFileName().toString());
+            try {
+                Files.createDirectories(target.getParent());
+                moveAtomically(file, target);
+                moved++;
+            } catch (IOException e) {
+                log.warn("Failed to move {} to {}", file, target, e);
+            }
+        }
+        log.info("Moved {} of {} flat files in {}", moved, flatFiles.size(), root);
+        return moved;
+    }
+
+    private Path root(ImageArea area) {
+        Path root = roots.get(area);
+        if (root == null) {
+            throw new IllegalArgumentException("No directory configured for " + area);
+        }
+        return root;
+    }
+
+    /** Описание обычного файла; {@code null} для каталога и файла, удалённого во время обхода. */
+    private static ListedImage listedImage(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new ListedImage(
+                    path.getFileName().toString(), attributes.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(
+                    source,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void createDirectory(Path path) {
+        try {
+            Files.createDirectories(path);
+        } catch (IOException e) {
+            log.error("Failed to create directory: {}", path.toAbsolutePath(), e);
+        }
+    }
+}
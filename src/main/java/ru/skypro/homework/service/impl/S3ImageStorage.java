@@ -0,0 +1,470 @@
+package ru.skypro.homework.service.impl;
+
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.service.ImageStorage;
+import ru.skypro.homework.util.AwsSignatureV4;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Хранилище картинок в S3-совместимом объектном хранилище (AWS S3, MinIO и т.п.). Объекты лежат в
+ * одном бакете под ключами {@code <область>/<имя>}; адресация path-style ({@code
+ * endpoint/bucket/key}), поэтому подходит и для локального MinIO.
+ *
+ * <p>Клиент написан на {@link HttpClient} из JDK с подписью запросов {@link AwsSignatureV4}, без
+ * AWS SDK. Содержимое передаётся потоком в обе стороны и в памяти целиком не держится.
+ */
+@Slf4j
+public class S3ImageStorage implements ImageStorage {
+
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final String HEADER_DATE = "x-amz-date";
+    private static final String HEADER_CONTENT_SHA256 = "x-amz-content-sha256";
+    private static final String HEADER_COPY_SOURCE = "x-amz-copy-source";
+    private static final String HEADER_METADATA_DIRECTIVE = "x-amz-metadata-directive";
+    private static final String TEMP_PREFIX = ".upload-";
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final Duration timeout;
+
+    public S3ImageStorage(
+            URI endpoint,
+            String bucket,
+            String region,
+            String accessKey,
+            String secretKey,
+            Duration timeout) {
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Создаёт бакет, если его ещё нет. Удобно для локального MinIO; в облаке бакет обычно создаётся
+     * заранее.
+     *
+     * @throws IOException если бакет не удалось проверить или создать
+     */
+    public void createBucketIfMissing() throws IOException {
+        String path = "/" + AwsSignatureV4.encodePathSegment(bucket);
+        HttpResponse<Void> head = send(path, "HEAD", HttpRequest.BodyPublishers.noBody(), null);
+        if (head.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            HttpResponse<Void> created =
+                    send(path, "PUT", HttpRequest.BodyPublishers.noBody(), null);
+            checkStatus(created, path);
+            log.info("Created bucket {}", bucket);
+        } else {
+            checkStatus(head, path);
+        }
+    }
+
+    @Override
+    public void save(ImageArea area, String filename, InputStream content, long contentLength)
+            throws IOException {
+        String path = objectPath(area, filename);
+        HttpRequest.BodyPublisher body =
+                HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> content), contentLength);
+        checkStatus(send(path, "PUT", body, contentType(filename)), path);
+    }
+
+    /**
+     * Загружает содержимое под временным ключом, а при публикации копирует объект на стороне
+     * хранилища под итоговым ключом и удаляет временный. Копия появляется атомарно, как и при
+     * обычной записи.
+     */
+    @Override
+    public StagedImage stage(ImageArea area, InputStream content, long contentLength)
+            throws IOException {
+        String tempFilename = TEMP_PREFIX + UUID.randomUUID();
+        save(area, tempFilename, content, contentLength);
+        String tempPath = objectPath(area, tempFilename);
+        return new StagedImage() {
+            private boolean closed;
+
+            @Override
+            public void publish(String filename) throws IOException {
+                String path = objectPath(area, filename);
+                Map<String, String> headers = new LinkedHashMap<>();
+                headers.put(HEADER_COPY_SOURCE, tempPath);
+                headers.put(HEADER_METADATA_DIRECTIVE, "REPLACE");
+                HttpRequest request =
+                        request(
+                                path,
+                                Map.of(),
+                                "PUT",
+                                HttpRequest.BodyPublishers.noBody(),
+                                contentType(filename),
+                                headers);
+                checkStatus(send(request, HttpResponse.BodyHandlers.discarding()), path);
+                close();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    delete(area, tempFilename);
+                    closed = true;
+                }
+            }
+        };
+    }
+
+    @Override
+    public Optional<StoredImage> find(ImageArea area, String filename) throws IOException {
+        String path = objectPath(area, filename);
+        HttpResponse<Void> head = send(path, "HEAD", HttpRequest.BodyPublishers.noBody(), null);
+        if (head.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            return Optional.empty();
+        }
+        checkStatus(head, path);
+        long contentLength =
+                head.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1L);
+        long lastModified =
+                head.headers()
+                        .firstValue(HttpHeaders.LAST_MODIFIED)
+                        .map(value -> ZonedDateTime.parse(value, RFC_1123_DATE_TIME))
+                        .map(date -> date.toInstant().toEpochMilli())
+                        .orElse(0L);
+        return Optional.of(
+                new StoredImage(
+                        new ObjectResource(path, filename, contentLength, lastModified),
+                        contentLength,
+                        lastModified));
+    }
+
+    @Override
+    public void delete(ImageArea area, String filename) throws IOException {
+        String path = objectPath(area, filename);
+        HttpResponse<Void> response =
+                send(path, "DELETE", HttpRequest.BodyPublishers.noBody(), null);
+        if (response.statusCode() != HttpStatus.NOT_FOUND.value()) {
+            checkStatus(response, path);
+        }
+    }
+
+    /** Перечисляет объекты через ListObjectsV2, запрашивая следующую страницу по мере обхода. */
+    @Override
+    public Stream<ListedImage> list(ImageArea area) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        new ListingIterator(area.getPrefix() + "/"),
+                        Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    private static String contentType(String filename) {
+        return MediaTypeFactory.getMediaType(filename)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+
+    private String objectPath(ImageArea area, String filename) {
+        return "/"
+                + AwsSignatureV4.encodePathSegment(bucket)
+                + "/"
+                + AwsSignatureV4.encodePathSegment(area.getPrefix())
+                + "/"
+                + AwsSignatureV4.encodePathSegment(filename);
+    }
+
+    private HttpResponse<Void> send(
+            String path, String method, HttpRequest.BodyPublisher body, String contentType)
+            throws IOException {
+        return send(
+                request(path, Map.of(), method, body, contentType),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private HttpRequest request(
+            String path,
+            Map<String, String> query,
+            String method,
+            HttpRequest.BodyPublisher body,
+            String contentType) {
+        return request(path, query, method, body, contentType, Map.of());
+    }
+
+    /**
+     * @param amzHeaders дополнительные заголовки {@code x-amz-*}; подписываются вместе с
+     *     остальными
+     */
+    private HttpRequest request(
+            String path,
+            Map<String, String> query,
+            String method,
+            HttpRequest.BodyPublisher body,
+            String contentType,
+            Map<String, String> amzHeaders) {
+        URI uri =
+                endpoint.resolve(
+                        query.isEmpty() ? path : path + "?" + AwsSignatureV4.canonicalQuery(query));
+        String amzDate = AMZ_DATE.format(Instant.now());
+        Map<String, String> signedHeaders = new LinkedHashMap<>();
+        signedHeaders.put(HttpHeaders.HOST, host(uri));
+        signedHeaders.put(HEADER_CONTENT_SHA256, AwsSignatureV4.UNSIGNED_PAYLOAD);
+        signedHeaders.put(HEADER_DATE, amzDate);
+        signedHeaders.putAll(amzHeaders);
+        String authorization =
+                AwsSignatureV4.authorization(
+                        method,
+                        uri.getRawPath(),
+                        query,
+                        signedHeaders,
+                        AwsSignatureV4.UNSIGNED_PAYLOAD,
+                        amzDate,
+                        region,
+                        accessKey,
+                        secretKey);
+
+        HttpRequest.Builder builder =
+                HttpRequest.newBuilder(uri)
+                        .timeout(timeout)
+                        .method(method, body)
+                        .header(HEADER_CONTENT_SHA256, AwsSignatureV4.UNSIGNED_PAYLOAD)
+                        .header(HEADER_DATE, amzDate)
+                        .header(HttpHeaders.AUTHORIZATION, authorization);
+        amzHeaders.forEach(builder::header);
+        if (contentType != null) {
+            builder.header(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+        return builder.build();
+    }
+
+    /** Значение заголовка Host в том виде, в каком его отправит {@link HttpClient}. */
+    private static String host(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort =
+                port == -1
+                        || ("http".equals(uri.getScheme()) && port == 80)
+                        || ("https".equals(uri.getScheme()) && port == 443);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static void checkStatus(HttpResponse<?> response, String path) throws IOException {
+        int status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            throw new IOException("S3 request " + path + " failed with status " + status);
+        }
+    }
+
+    /** Обход объектов с заданным префиксом ключа постранично. */
+    private final class ListingIterator implements Iterator<ListedImage> {
+
+        private final String prefix;
+        private final Deque<ListedImage> page = new ArrayDeque<>();
+        private String continuationToken;
+        private boolean lastPage;
+
+        private ListingIterator(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (page.isEmpty() && !lastPage) {
+                try {
+                    fetchPage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return !page.isEmpty();
+        }
+
+        @Override
+        public ListedImage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.poll();
+        }
+
+        private void fetchPage() throws IOException {
+            Map<String, String> query = new LinkedHashMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", prefix);
+            query.put("max-keys", String.valueOf(LIST_PAGE_SIZE));
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            String path = "/" + AwsSignatureV4.encodePathSegment(bucket);
+            HttpResponse<InputStream> response =
+                    send(
+                            request(path, query, "GET", HttpRequest.BodyPublishers.noBody(), null),
+                            HttpResponse.BodyHandlers.ofInputStream());
+            Document document;
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != HttpStatus.OK.value()) {
+                    throw new IOException(
+                            "S3 listing of " + prefix + " failed with status "
+                                    + response.statusCode());
+                }
+                document = parseXml(body);
+            }
+
+            NodeList contents = document.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element object = (Element) contents.item(i);
+                String key = text(object, "Key");
+                if (key != null
+                        && key.startsWith(prefix)
+                        && key.length() > prefix.length()
+                        && !key.startsWith(TEMP_PREFIX, prefix.length())) {
+                    String lastModified = text(object, "LastModified");
+                    page.add(
+                            new ListedImage(
+                                    key.substring(prefix.length()),
+                                    lastModified != null
+                                            ? Instant.parse(lastModified).toEpochMilli()
+                                            : 0L));
+                }
+            }
+            Element result = document.getDocumentElement();
+            continuationToken = text(result, "NextContinuationToken");
+            lastPage = !"true".equals(text(result, "IsTruncated")) || continuationToken == null;
+        }
+    }
+
+    private static Document parseXml(InputStream in) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setNamespaceAware(false);
+            return factory.newDocumentBuilder().parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid S3 listing response", e);
+        }
+    }
+
+    /** Текст первого дочернего элемента с указанным именем или {@code null}. */
+    private static String text(Element parent, String name) {
+        NodeList nodes = parent.getElementsByTagName(name);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+
+    /** Объект хранилища, содержимое которого запрашивается только при чтении потока. */
+    private final class ObjectResource extends AbstractResource {
+
+        private final String path;
+        private final String filename;
+        private final long contentLength;
+        private final long lastModified;
+
+        private ObjectResource(
+                String path, String filename, long contentLength, long lastModified) {
+            this.path = path;
+            this.filename = filename;
+            this.contentLength = contentLength;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            HttpResponse<InputStream> response =
+                    send(
+                            request(
+                                    path,
+                                    Map.of(),
+                                    "GET",
+                                    HttpRequest.BodyPublishers.noBody(),
+                                    null),
+                            HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                response.body().close();
+                throw new FileNotFoundException(getDescription());
+            }
+            return response.body();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + endpoint + path + "]";
+        }
+    }
+}
@@ -3,14 +3,12 @@ package ru.skypro.homework.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import ru.skypro.homework.constants.ExceptionMessages;
-import ru.skypro.homework.constants.UrlPrefixConstants;
 import ru.skypro.homework.dto.user.NewPasswordDto;
 import ru.skypro.homework.dto.user.UpdateUserDto;
 import ru.skypro.homework.dto.user.UserDto;
@@ -18,6 +16,8 @@ import ru.skypro.homework.exception.InvalidCurrentPasswordException;
 import ru.skypro.homework.mapper.UserMapper;
 import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.AdService;
+import ru.skypro.homework.service.AuthenticationCache;
 import ru.skypro.homework.service.CurrentUserService;
 import ru.skypro.homework.service.ImageService;
 import ru.skypro.homework.service.UserService;
@@ -26,7 +26,8 @@ import ru.skypro.homework.service.UserService;
  * Реализация сервиса {@link UserService}. Использует {@link UserRepository} для доступа к данным
  * пользователей, {@link PasswordEncoder} для шифрования паролей, {@link CurrentUserService} для
  * получения текущего аутентифицированного пользователя, {@link ImageService} для сохранения и
- * удаления аватаров.
+ * удаления аватаров, {@link AdService} для инвалидации кэша карточек объявлений при изменении
+ * профиля, {@link AuthenticationCache} для сброса проверенных учётных данных при смене пароля.
  *
  * @see UserService
  * @see UserRepository
@@ -45,9 +46,8 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder passwordEncoder;
     private final CurrentUserService currentUserService;
     private final ImageService imageService;
-
-    @Value("${app.image.avatar-dir}")
-    private String avatarDir;
+    private final AdService adService;
+    private final AuthenticationCache authenticationCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -61,6 +61,8 @@ public class UserServiceImpl implements UserService {
         UsersDao user = currentUserService.getCurrentUser();
         userMapper.updateUserFromDto(updateUserDto, user);
         userRepository.save(user);
+        // Имя, фамилия и телефон автора входят в закэшированные карточки его объявлений
+        adService.evictAuthorAdCards(user.getId());
         return updateUserDto;
     }
 
@@ -72,6 +74,7 @@ public class UserServiceImpl implements UserService {
         }
         user.setPassword(passwordEncoder.encode(newPasswordDto.getNewPassword()));
         userRepository.save(user);
+        authenticationCache.evict(user.getEmail());
         log.info("Password changed for user: {}", user.getEmail());
     }
 
@@ -80,16 +83,16 @@ public class UserServiceImpl implements UserService {
         UsersDao user = currentUserService.getCurrentUser();
         String oldImagePath = user.getImage(); // запоминаем старый путь
 
-        // Удаляем старый файл, если он есть (до сохранения нового)
-        if (oldImagePath != null) {
-            imageService.deleteImage(oldImagePath, avatarDir);
-        }
-
         // Сохраняем новый аватар
-        String newImagePath = imageService.saveAvatar(image, user.getId(), UrlPrefixConstants.URL_PREFIX_AVATARS);
+        String newImagePath = imageService.saveAvatar(image, user.getId());
         user.setImage(newImagePath);
         userRepository.save(user);
 
+        // Старый файл удаляется только после фиксации: при откате пользователь сохранит аватар
+        if (oldImagePath != null && !oldImagePath.equals(newImagePath)) {
+            imageService.deleteAvatar(oldImagePath);
+        }
+
         log.info("Аватар пользователя {} обновлён, новый путь: {}", user.getId(), newImagePath);
     }
 }
@@ -0,0 +1,192 @@
+package ru.skypro.homework.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Подпись HTTP-запросов к S3-совместимому хранилищу по алгоритму AWS Signature Version 4 (заголовок
+ * {@code Authorization}).
+ */
+public final class AwsSignatureV4 {
+
+    /** Хеш тела, если тело не подписывается (допустимо для S3 по HTTPS и для MinIO). */
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String SERVICE = "s3";
+    private static final String TERMINATOR = "aws4_request";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private AwsSignatureV4() {}
+
+    /**
+     * Вычисляет значение заголовка {@code Authorization} для запроса без параметров в строке
+     * запроса.
+     *
+     * @see #authorization(String, String, Map, Map, String, String, String, String, String)
+     */
+    public static String authorization(
+            String method,
+            String path,
+            Map<String, String> headers,
+            String payloadHash,
+            String amzDate,
+            String region,
+            String accessKey,
+            String secretKey) {
+        return authorization(
+                method,
+                path,
+                Map.of(),
+                headers,
+                payloadHash,
+                amzDate,
+                region,
+                accessKey,
+                secretKey);
+    }
+
+    /**
+     * Вычисляет значение заголовка {@code Authorization}.
+     *
+     * @param method HTTP-метод
+     * @param path путь запроса, уже закодированный по правилам URI
+     * @param query параметры строки запроса (в URI должны передаваться как {@link
+     *     #canonicalQuery(Map)})
+     * @param headers подписываемые заголовки, включая {@code host}, {@code x-amz-date} и {@code
+     *     x-amz-content-sha256}
+     * @param payloadHash значение {@code x-amz-content-sha256}
+     * @param amzDate время запроса в формате {@code yyyyMMdd'T'HHmmss'Z'}
+     * @param region регион хранилища
+     * @param accessKey идентификатор ключа доступа
+     * @param secretKey секретный ключ
+     * @return значение заголовка {@code Authorization}
+     */
+    public static String authorization(
+            String method,
+            String path,
+            Map<String, String> query,
+            Map<String, String> headers,
+            String payloadHash,
+            String amzDate,
+            String region,
+            String accessKey,
+            String secretKey) {
+        SortedMap<String, String> canonicalHeaders = new TreeMap<>();
+        headers.forEach(
+                (name, value) -> canonicalHeaders.put(name.toLowerCase(Locale.ROOT), value.trim()));
+        String signedHeaders = String.join(";", canonicalHeaders.keySet());
+        String canonicalRequest =
+                method
+                        + "\n"
+                        + path
+                        + "\n"
+                        + canonicalQuery(query)
+                        + "\n"
+                        + canonicalHeaders.entrySet().stream()
+                                .map(header -> header.getKey() + ":" + header.getValue() + "\n")
+                                .collect(Collectors.joining())
+                        + "\n"
+                        + signedHeaders
+                        + "\n"
+                        + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/" + SERVICE + "/" + TERMINATOR;
+        String stringToSign =
+                ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, TERMINATOR);
+        String signature = hex(hmac(key, stringToSign));
+
+        return ALGORITHM
+                + " Credential="
+                + accessKey
+                + "/"
+                + scope
+                + ", SignedHeaders="
+                + signedHeaders
+                + ", Signature="
+                + signature;
+    }
+
+    /**
+     * Строит строку запроса в каноническом виде: параметры отсортированы по имени, имена и
+     * значения закодированы {@link #encodePathSegment(String)}.
+     *
+     * @param query параметры строки запроса
+     * @return строка запроса без символа {@code ?}
+     */
+    public static String canonicalQuery(Map<String, String> query) {
+        return new TreeMap<>(query).entrySet().stream()
+                .map(p -> encodePathSegment(p.getKey()) + "=" + encodePathSegment(p.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    /**
+     * Кодирует сегмент пути по правилам S3: все символы, кроме {@code A-Z a-z 0-9 - _ . ~},
+     * заменяются на {@code %XX}.
+     *
+     * @param segment сегмент пути без символа {@code /}
+     * @return закодированный сегмент
+     */
+    public static String encodePathSegment(String segment) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : segment.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z')
+                    || (c >= 'a' && c <= 'z')
+                    || (c >= '0' && c <= '9')
+                    || c == '-'
+                    || c == '_'
+                    || c == '.'
+                    || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append(String.format("%%%02X", (int) c));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return hex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+}
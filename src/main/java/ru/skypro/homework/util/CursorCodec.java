@@ -0,0 +1,115 @@
+package ru.skypro.homework.util;
+
+import ru.skypro.homework.constants.ExceptionMessages;
+import ru.skypro.homework.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Кодирование и разбор непрозрачных курсоров для постраничной выборки по ключу (keyset
+ * pagination).
+ *
+ * <p>Курсор содержит значения ключа сортировки последней выданной записи, склеенные через
+ * разделитель и закодированные в URL-safe Base64. Клиент не разбирает курсор, а только передаёт
+ * его обратно в параметре {@code cursor}.
+ *
+ * <p>Курсор не подписан: клиент может собрать его сам, поэтому значения из курсора используются
+ * только как границы выборки. При повреждённом курсоре (не Base64, другое число значений, значение
+ * не разбирается как число) выбрасывает {@link InvalidCursorException}.
+ */
+public final class CursorCodec {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+    private static final String SEPARATOR_REGEX = "\\|";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CursorCodec() {}
+
+    /**
+     * Кодирует значения ключа сортировки в курсор.
+     *
+     * @param values значения ключа (например, pk последней записи)
+     * @return непрозрачная строка курсора
+     */
+    public static String encode(Object... values) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        joiner.add(VERSION);
+        for (Object value : values) {
+            joiner.add(String.valueOf(value));
+        }
+        return ENCODER.encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор, ожидая указанное количество значений.
+     *
+     * @param cursor строка курсора, полученная от клиента
+     * @param size ожидаемое количество значений ключа
+     * @return разобранные значения
+     * @throws InvalidCursorException если курсор повреждён или имеет другой формат
+     */
+    public static Values decode(String cursor, int size) {
+        String[] parts;
+        try {
+            parts =
+                    new String(DECODER.decode(cursor), StandardCharsets.UTF_8)
+                            .split(SEPARATOR_REGEX, -1);
+        } catch (IllegalArgumentException e) {
+            throw invalid(cursor);
+        }
+        if (parts.length != size + 1 || !VERSION.equals(parts[0])) {
+            throw invalid(cursor);
+        }
+        return new Values(cursor, Arrays.copyOfRange(parts, 1, parts.length));
+    }
+
+    private static InvalidCursorException invalid(String cursor) {
+        return new InvalidCursorException(String.format(ExceptionMessages.INVALID_CURSOR, cursor));
+    }
+
+    /** Значения ключа, извлечённые из курсора, с типизированным доступом. */
+    public static final class Values {
+
+        private final String cursor;
+        private final String[] parts;
+
+        private Values(String cursor, String[] parts) {
+            this.cursor = cursor;
+            this.parts = parts;
+        }
+
+        public int intAt(int index) {
+            try {
+                return Integer.parseInt(parts[index]);
+            } catch (NumberFormatException e) {
+                throw invalid(cursor);
+            }
+        }
+
+        public long longAt(int index) {
+            try {
+                return Long.parseLong(parts[index]);
+            } catch (NumberFormatException e) {
+                throw invalid(cursor);
+            }
+        }
+
+        public float floatAt(int index) {
+            try {
+                float value = Float.parseFloat(parts[index]);
+                if (!Float.isFinite(value)) {
+                    throw invalid(cursor);
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                throw invalid(cursor);
+            }
+        }
+    }
+}
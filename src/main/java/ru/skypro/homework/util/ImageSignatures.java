@@ -0,0 +1,61 @@
+package ru.skypro.homework.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Определение формата изображения по сигнатуре (магическим байтам) в начале файла. Заголовок
+ * {@code Content-Type} задаёт клиент, поэтому сам по себе он не гарантирует, что файл является
+ * картинкой.
+ */
+public final class ImageSignatures {
+
+    /** Число байт от начала файла, достаточное для определения любого поддерживаемого формата. */
+    public static final int HEADER_LENGTH = 12;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87A = ascii("GIF87a");
+    private static final byte[] GIF89A = ascii("GIF89a");
+    private static final byte[] BMP = ascii("BM");
+    private static final byte[] RIFF = ascii("RIFF");
+    private static final byte[] WEBP = ascii("WEBP");
+    private static final int WEBP_OFFSET = 8;
+
+    private ImageSignatures() {}
+
+    /**
+     * Возвращает MIME-тип изображения по первым байтам файла.
+     *
+     * @param header первые байты файла (не менее {@link #HEADER_LENGTH}, если файл не короче)
+     * @return MIME-тип или {@code null}, если сигнатура не распознана
+     */
+    public static String detectContentType(byte[] header) {
+        if (startsWith(header, 0, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, 0, PNG)) {
+            return "image/png";
+        }
+        if (startsWith(header, 0, GIF87A) || startsWith(header, 0, GIF89A)) {
+            return "image/gif";
+        }
+        if (startsWith(header, 0, BMP)) {
+            return "image/bmp";
+        }
+        if (startsWith(header, 0, RIFF) && startsWith(header, WEBP_OFFSET, WEBP)) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] signature) {
+        return header.length >= offset + signature.length
+                && Arrays.equals(
+                        header, offset, offset + signature.length, signature, 0, signature.length);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,6 @@
+-- Объявления автора читаются страницами по возрастанию pk: составной индекс отдаёт страницу
+-- без сортировки, а счётчик объявлений автора считается только по индексу.
+-- Индекс по одному user_id становится его префиксом и больше не нужен.
+CREATE INDEX IF NOT EXISTS idx_ads_user_id_pk ON ads (user_id, pk);
+
+DROP INDEX IF EXISTS idx_ads_user_id;
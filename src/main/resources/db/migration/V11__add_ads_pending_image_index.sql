@@ -0,0 +1,3 @@
+-- Необработанные картинки периодически ищутся для повторной постановки в очередь. Таких строк
+-- мало, поэтому частичный индекс небольшой и не обновляется при смене состояния на READY.
+CREATE INDEX IF NOT EXISTS idx_ads_pending_image ON ads (pk) WHERE image_status = 'PENDING';
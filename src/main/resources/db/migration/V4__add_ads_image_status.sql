@@ -0,0 +1,4 @@
+-- Состояние фоновой обработки картинки объявления (PENDING, READY, FAILED).
+-- Существующие картинки считаются обработанными: для них отдаётся оригинал.
+ALTER TABLE ads
+    ADD COLUMN image_status VARCHAR(10) NOT NULL DEFAULT 'READY';
@@ -0,0 +1,15 @@
+-- Картинки объявлений, адресуемые по содержимому: имя файла – SHA-256 содержимого и расширение.
+-- ref_count – число объявлений, ссылающихся на файл; файл удаляется, когда ссылок не остаётся.
+CREATE TABLE IF NOT EXISTS image_blobs (
+    filename VARCHAR(100) PRIMARY KEY,
+    ref_count INTEGER NOT NULL CHECK (ref_count >= 0),
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Уже загруженные картинки (с именами UUID) учитываются так же, чтобы удаление шло через счётчик.
+INSERT INTO image_blobs (filename, ref_count)
+SELECT substring(image FROM '[^/]+$'), count(*)
+FROM ads
+WHERE image LIKE '/ads-images/%'
+GROUP BY substring(image FROM '[^/]+$')
+ON CONFLICT (filename) DO NOTHING;
@@ -0,0 +1,4 @@
+-- Индексы для проверки, ссылаются ли объявления и пользователи на файл картинки
+-- (сборщик неиспользуемых файлов проверяет файлы порциями по списку путей).
+CREATE INDEX IF NOT EXISTS idx_ads_image ON ads (image);
+CREATE INDEX IF NOT EXISTS idx_users_image ON users (image);
@@ -0,0 +1,7 @@
+-- Комментарии объявления выбираются в порядке (created_at DESC, pk DESC). Составной индекс отдаёт
+-- их уже упорядоченными, а продолжение страницы по курсору становится условием индекса.
+CREATE INDEX IF NOT EXISTS idx_comments_ad_id_created_at
+    ON comments (ad_id, created_at DESC, pk DESC);
+
+-- Префикс нового индекса покрывает поиск по ad_id (в том числе для каскадного удаления)
+DROP INDEX IF EXISTS idx_comments_ad_id;
@@ -0,0 +1,9 @@
+-- Число комментариев к объявлению для карточек в ленте. Поддерживается приложением при
+-- добавлении и удалении комментария и сверяется с таблицей comments фоновым заданием.
+ALTER TABLE ads
+    ADD COLUMN comment_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE ads a
+SET comment_count = c.cnt
+FROM (SELECT ad_id, COUNT(*) AS cnt FROM comments GROUP BY ad_id) c
+WHERE a.pk = c.ad_id;
@@ -18,6 +18,7 @@ import org.springframework.util.MultiValueMap;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
@@ -66,6 +67,11 @@ public abstract class AbstractIntegrationTest {
         Runtime.getRuntime().addShutdownHook(new Thread(postgres::stop));
     }
 
+    /** Начало JPEG-файла: маркер SOI и маркер APP0. */
+    private static final byte[] JPEG_SIGNATURE = {
+        (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0
+    };
+
     /** Временная директория для хранения аватаров в тестах. */
     private static Path tempAvatarDir;
 
@@ -103,8 +109,9 @@ public abstract class AbstractIntegrationTest {
     }
 
     /**
-     * Динамически добавляет свойства для подключения к тестовой БД и временным директориям.
-     * Эти свойства переопределяют значения из {@code application.properties}.
+     * Динамически добавляет свойства для подключения к тестовой БД и временным директориям, а
+     * также включает статистику Hibernate для тестов, считающих SQL-запросы. Эти свойства
+     * переопределяют значения из {@code application.properties}.
      *
      * @param registry реестр динамических свойств Spring
      */
@@ -117,6 +124,7 @@ public abstract class AbstractIntegrationTest {
         registry.add("app.image.ad-dir", tempAdImageDir::toString);
         registry.add("spring.datasource.hikari.connection-timeout", () -> "60000");
         registry.add("spring.datasource.hikari.validation-timeout", () -> "60000");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
     }
 
     /** Порт, на котором запущен встроенный Tomcat (назначается случайно). */
@@ -152,6 +160,33 @@ public abstract class AbstractIntegrationTest {
         return restTemplate.withBasicAuth(username, password);
     }
 
+    /**
+     * Возвращает содержимое тестовой картинки: сигнатура JPEG и произвольный текст. Загрузка
+     * проверяет магические байты файла, поэтому простой текст картинкой не считается.
+     *
+     * @param content текст после сигнатуры
+     * @return байты файла
+     */
+    protected static byte[] jpeg(String content) {
+        byte[] text = content.getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[JPEG_SIGNATURE.length + text.length];
+        System.arraycopy(JPEG_SIGNATURE, 0, result, 0, JPEG_SIGNATURE.length);
+        System.arraycopy(text, 0, result, JPEG_SIGNATURE.length, text.length);
+        return result;
+    }
+
+    /**
+     * Ожидает удаления файла: файлы удаляются в фоновом потоке после фиксации транзакции.
+     *
+     * @param path путь к файлу
+     * @throws InterruptedException если ожидание прервано
+     */
+    protected static void awaitDeleted(Path path) throws InterruptedException {
+        for (int attempt = 0; attempt < 50 && Files.exists(path); attempt++) {
+            Thread.sleep(100);
+        }
+    }
+
     /**
      * Выполняет PATCH-запрос с телом JSON, используя Basic-аутентификацию.
      *
@@ -19,15 +19,21 @@ import ru.skypro.homework.dto.ad.AdsDto;
 import ru.skypro.homework.dto.ad.CreateOrUpdateAdDto;
 import ru.skypro.homework.dto.ad.ExtendedAdDto;
 import ru.skypro.homework.dto.auth.Role;
+import ru.skypro.homework.dto.image.ImageDto;
+import ru.skypro.homework.dto.image.ImageStatus;
+import ru.skypro.homework.dto.user.UpdateUserDto;
 import ru.skypro.homework.model.AdsDao;
 import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.AdRepository;
 import ru.skypro.homework.repository.CommentRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.impl.LocalImageStorage;
 
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 class AdControllerIntegrationTest extends AbstractIntegrationTest {
 
@@ -92,6 +98,77 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getCount()).isPositive();
+        assertThat(response.getBody().getResults())
+                .extracting(AdDto::getCommentCount)
+                .doesNotContainNull();
+    }
+
+    @Test
+    void getAllAds_WithLimit_ShouldReturnPagesByCursor() {
+        AdsDao secondAd = new AdsDao();
+        secondAd.setTitle("Second Ad");
+        secondAd.setDescription("Second Description");
+        secondAd.setPrice(2000);
+        secondAd.setAuthor(testUser);
+        adRepository.save(secondAd);
+
+        ResponseEntity<AdsDto> firstPage =
+                restTemplate.getForEntity(baseUrl() + "/ads?limit=1", AdsDto.class);
+
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody()).isNotNull();
+        assertThat(firstPage.getBody().getResults())
+                .extracting(AdDto::getPk)
+                .containsExactly(testAd.getPk());
+        assertThat(firstPage.getBody().getNext()).isNotNull();
+
+        ResponseEntity<AdsDto> secondPage =
+                restTemplate.getForEntity(
+                        baseUrl() + "/ads?limit=1&cursor={cursor}",
+                        AdsDto.class,
+                        firstPage.getBody().getNext());
+
+        assertThat(secondPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(secondPage.getBody()).isNotNull();
+        assertThat(secondPage.getBody().getResults())
+                .extracting(AdDto::getPk)
+                .containsExactly(secondAd.getPk());
+        assertThat(secondPage.getBody().getNext()).isNull();
+    }
+
+    @Test
+    void getAllAds_WithInvalidCursor_ShouldReturnBadRequest() {
+        ResponseEntity<String> response =
+                restTemplate.getForEntity(baseUrl() + "/ads?cursor=broken", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void streamAllAds_ShouldReturnNdjsonLines() throws Exception {
+        AdsDao secondAd = new AdsDao();
+        secondAd.setTitle("Second Ad");
+        secondAd.setDescription("Second Description");
+        secondAd.setPrice(2000);
+        secondAd.setAuthor(testUser);
+        adRepository.save(secondAd);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> response =
+                restTemplate.exchange(
+                        baseUrl() + "/ads", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType())
+                .isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(response.getBody()).isNotNull();
+        String[] lines = response.getBody().trim().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], AdDto.class).getPk())
+                .isEqualTo(testAd.getPk());
+        assertThat(objectMapper.readValue(lines[1], AdDto.class).getPk())
+                .isEqualTo(secondAd.getPk());
     }
 
     @Test
@@ -112,7 +189,7 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
             }
         };
 
-        byte[] imageContent = "fake image content".getBytes();
+        byte[] imageContent = jpeg("fake image content");
         ByteArrayResource imagePart = new ByteArrayResource(imageContent) {
             @Override
             public String getFilename() {
@@ -135,10 +212,40 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getBody().getAuthor()).isEqualTo(testUser.getId());
 
         String imageUrl = response.getBody().getImage();
-        String filename = Paths.get(imageUrl).getFileName().toString();
-        Path savedPath = Paths.get(adImageDir).resolve(filename);
+        assertThat(imageUrl).endsWith("?size=thumb");
+        String filename = Paths.get(URI.create(imageUrl).getPath()).getFileName().toString();
+        Path savedPath = LocalImageStorage.shardedPath(Paths.get(adImageDir), filename);
         assertThat(savedPath).exists();
         assertThat(Files.readAllBytes(savedPath)).isEqualTo(imageContent);
+
+        // Варианты создаются в фоне после фиксации транзакции
+        AdsDao created = adRepository.findById(response.getBody().getPk()).orElseThrow();
+        for (int i = 0; i < 50 && created.getImageStatus() == ImageStatus.PENDING; i++) {
+            Thread.sleep(100);
+            created = adRepository.findById(created.getPk()).orElseThrow();
+        }
+        assertThat(created.getImageStatus()).isEqualTo(ImageStatus.READY);
+    }
+
+    @Test
+    void searchAds_ShouldFindByWordForm_WithoutAuthentication() {
+        ResponseEntity<AdsDto> response = restTemplate.getForEntity(
+                baseUrl() + "/ads/search?q={q}&limit=1", AdsDto.class, "tests ad");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults())
+                .extracting(AdDto::getPk)
+                .containsExactly(testAd.getPk());
+        assertThat(response.getBody().getNext()).isNull();
+    }
+
+    @Test
+    void searchAds_WithBlankQuery_ShouldReturnBadRequest() {
+        ResponseEntity<String> response =
+                restTemplate.getForEntity(baseUrl() + "/ads/search?q= ", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
     @Test
@@ -159,6 +266,47 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getBody().getImage()).isEqualTo(testAd.getImage());
     }
 
+    @Test
+    void getAd_AfterUpdateAd_ShouldNotReturnCachedCard() {
+        String url = baseUrl() + "/ads/" + testAd.getPk();
+        withAuth(userEmail, userPassword).getForEntity(url, ExtendedAdDto.class);
+
+        CreateOrUpdateAdDto update = new CreateOrUpdateAdDto();
+        update.setTitle("Updated Title");
+        update.setDescription("Updated Description");
+        update.setPrice(2000);
+        patchWithAuth(url, update, AdDto.class, userEmail, userPassword);
+
+        ResponseEntity<ExtendedAdDto> response = withAuth(userEmail, userPassword)
+                .getForEntity(url, ExtendedAdDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getTitle()).isEqualTo("Updated Title");
+        assertThat(response.getBody().getPrice()).isEqualTo(2000);
+    }
+
+    @Test
+    void getAd_AfterAuthorProfileUpdate_ShouldReturnNewAuthorName() {
+        String url = baseUrl() + "/ads/" + testAd.getPk();
+        withAuth(userEmail, userPassword).getForEntity(url, ExtendedAdDto.class);
+
+        UpdateUserDto update = new UpdateUserDto();
+        update.setFirstName("Семён");
+        update.setLastName("Семёнов");
+        update.setPhone("+7 (999) 000-00-00");
+        patchWithAuth(baseUrl() + "/users/me", update, UpdateUserDto.class, userEmail, userPassword);
+
+        ResponseEntity<ExtendedAdDto> response = withAuth(userEmail, userPassword)
+                .getForEntity(url, ExtendedAdDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getAuthorFirstName()).isEqualTo("Семён");
+        assertThat(response.getBody().getAuthorLastName()).isEqualTo("Семёнов");
+        assertThat(response.getBody().getPhone()).isEqualTo("+7 (999) 000-00-00");
+    }
+
     @Test
     void removeAd_ByAuthor_ShouldDeleteAdAndImageFile() throws Exception {
         // Создаём объявление с реальным файлом
@@ -178,6 +326,7 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         assertThat(adRepository.findById(adWithImage.getPk())).isEmpty();
+        awaitDeleted(imagePath);
         assertThat(imagePath).doesNotExist();
     }
 
@@ -243,6 +392,39 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getBody().getResults().get(0).getPk()).isEqualTo(testAd.getPk());
     }
 
+    @Test
+    void getAdsMe_WithLimit_ShouldReturnOwnAdsByCursorWithTotalCount() {
+        AdsDao secondAd = new AdsDao();
+        secondAd.setTitle("Second Ad");
+        secondAd.setDescription("Second Description");
+        secondAd.setPrice(2000);
+        secondAd.setAuthor(testUser);
+        adRepository.save(secondAd);
+        AdsDao foreignAd = new AdsDao();
+        foreignAd.setTitle("Admin Ad");
+        foreignAd.setDescription("Admin Description");
+        foreignAd.setPrice(3000);
+        foreignAd.setAuthor(adminUser);
+        adRepository.save(foreignAd);
+
+        AdsDto firstPage =
+                withAuth(userEmail, userPassword)
+                        .getForObject(baseUrl() + "/ads/me?limit=1", AdsDto.class);
+        AdsDto secondPage =
+                withAuth(userEmail, userPassword)
+                        .getForObject(
+                                baseUrl() + "/ads/me?limit=1&cursor={cursor}",
+                                AdsDto.class,
+                                firstPage.getNext());
+
+        assertThat(firstPage.getResults()).extracting(AdDto::getPk).containsExactly(testAd.getPk());
+        assertThat(firstPage.getCount()).isEqualTo(2);
+        assertThat(secondPage.getResults())
+                .extracting(AdDto::getPk)
+                .containsExactly(secondAd.getPk());
+        assertThat(secondPage.getNext()).isNull();
+    }
+
     @Test
     void updateImage_ShouldReplaceImageAndDeleteOld() throws Exception {
         // Создаём старый файл
@@ -254,7 +436,7 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.MULTIPART_FORM_DATA);
 
-        byte[] newContent = "new image content".getBytes();
+        byte[] newContent = jpeg("new image content");
         ByteArrayResource imagePart = new ByteArrayResource(newContent) {
             @Override
             public String getFilename() {
@@ -265,30 +447,58 @@ class AdControllerIntegrationTest extends AbstractIntegrationTest {
         MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
         body.add("image", imagePart);
 
-        ResponseEntity<byte[]> response = patchMultipartWithAuth(
+        ResponseEntity<ImageDto> response = patchMultipartWithAuth(
                 baseUrl() + "/ads/" + testAd.getPk() + "/image",
                 body,
-                byte[].class,
+                ImageDto.class,
                 userEmail,
                 userPassword);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isEqualTo(newContent);
 
         AdsDao updated = adRepository.findById(testAd.getPk()).orElseThrow();
         assertThat(updated.getImage()).startsWith("/ads-images/");
         assertThat(updated.getImage()).isNotEqualTo(testAd.getImage());
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getUrl()).isEqualTo(updated.getImage());
+        assertThat(response.getBody().getSize()).isEqualTo(newContent.length);
+        assertThat(response.getBody().getEtag()).isNotBlank();
 
-        // Старый файл должен быть удалён
+        // Старый файл должен быть удалён после фиксации транзакции
+        awaitDeleted(oldImagePath);
         assertThat(oldImagePath).doesNotExist();
 
         // Новый файл должен существовать
         String newFilename = Paths.get(updated.getImage()).getFileName().toString();
-        Path newImagePath = Paths.get(adImageDir, newFilename);
+        Path newImagePath = LocalImageStorage.shardedPath(Paths.get(adImageDir), newFilename);
         assertThat(newImagePath).exists();
         assertThat(Files.readAllBytes(newImagePath)).isEqualTo(newContent);
     }
 
+    @Test
+    void updateImage_WithEcho_ShouldReturnImageContent() {
+        byte[] newContent = jpeg("new image content");
+        ByteArrayResource imagePart = new ByteArrayResource(newContent) {
+            @Override
+            public String getFilename() {
+                return "newimage.jpg";
+            }
+        };
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("image", imagePart);
+
+        ResponseEntity<byte[]> response = patchMultipartWithAuth(
+                baseUrl() + "/ads/" + testAd.getPk() + "/image?echo=true",
+                body,
+                byte[].class,
+                userEmail,
+                userPassword);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(newContent);
+        assertThat(response.getHeaders().getETag()).isNotBlank();
+    }
+
     // ====== ТЕСТЫ НА 401 (БЕЗ АВТОРИЗАЦИИ) ======
 
     @Test
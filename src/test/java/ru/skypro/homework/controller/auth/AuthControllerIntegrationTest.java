@@ -4,13 +4,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import ru.skypro.homework.AbstractIntegrationTest;
 import ru.skypro.homework.dto.auth.LoginDto;
+import ru.skypro.homework.dto.auth.RefreshTokenDto;
 import ru.skypro.homework.dto.auth.RegisterDto;
 import ru.skypro.homework.dto.auth.Role;
+import ru.skypro.homework.dto.auth.TokenDto;
 
 class AuthControllerIntegrationTest extends AbstractIntegrationTest {
 
@@ -99,4 +103,65 @@ class AuthControllerIntegrationTest extends AbstractIntegrationTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
     }
+
+    @Test
+    void login_ShouldReturnTokensUsableAsBearer() {
+        RegisterDto registerDto = new RegisterDto();
+        registerDto.setUsername("token@test.com");
+        registerDto.setPassword("password");
+        registerDto.setFirstName("Token");
+        registerDto.setLastName("User");
+        registerDto.setPhone("+7 (999) 555-44-33");
+        registerDto.setRole(Role.USER);
+        restTemplate.postForEntity(
+                baseUrl() + "/register", new HttpEntity<>(registerDto), Void.class);
+
+        LoginDto loginDto = new LoginDto();
+        loginDto.setUsername("token@test.com");
+        loginDto.setPassword("password");
+        ResponseEntity<TokenDto> login =
+                restTemplate.postForEntity(
+                        baseUrl() + "/login", new HttpEntity<>(loginDto), TokenDto.class);
+
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(login.getBody()).isNotNull();
+        assertThat(getMeWithBearer(login.getBody().getAccessToken()).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+
+        RefreshTokenDto refreshDto = new RefreshTokenDto();
+        refreshDto.setRefreshToken(login.getBody().getRefreshToken());
+        ResponseEntity<TokenDto> refreshed =
+                restTemplate.postForEntity(
+                        baseUrl() + "/refresh", new HttpEntity<>(refreshDto), TokenDto.class);
+
+        assertThat(refreshed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(refreshed.getBody()).isNotNull();
+        assertThat(getMeWithBearer(refreshed.getBody().getAccessToken()).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void request_WithInvalidBearer_ShouldReturnUnauthorized() {
+        assertThat(getMeWithBearer("not.a.token").getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void refresh_WithInvalidToken_ShouldReturnUnauthorized() {
+        RefreshTokenDto refreshDto = new RefreshTokenDto();
+        refreshDto.setRefreshToken("not.a.token");
+
+        ResponseEntity<Void> response =
+                restTemplate.postForEntity(
+                        baseUrl() + "/refresh", new HttpEntity<>(refreshDto), Void.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private ResponseEntity<String> getMeWithBearer(String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        return restTemplate.exchange(
+                baseUrl() + "/users/me", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
 }
@@ -2,6 +2,8 @@ package ru.skypro.homework.controller.comment;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,14 +25,21 @@ import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.AdRepository;
 import ru.skypro.homework.repository.CommentRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.CommentCountReconciler;
 
 import java.time.LocalDateTime;
 
+import javax.persistence.EntityManagerFactory;
+
 class CommentControllerIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired private UserRepository userRepository;
     @Autowired private AdRepository adRepository;
     @Autowired private CommentRepository commentRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private CommentCountReconciler commentCountReconciler;
+
+    private Statistics statistics;
 
     private UsersDao author;
     private UsersDao otherUser;
@@ -85,6 +94,10 @@ class CommentControllerIntegrationTest extends AbstractIntegrationTest {
         comment.setAuthor(author);
         comment.setAd(ad);
         commentRepository.save(comment);
+        // Комментарии сохранены в обход сервиса, счётчик ads.comment_count выравнивается сверкой
+        commentCountReconciler.reconcile();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
     }
 
     @AfterEach
@@ -106,8 +119,87 @@ class CommentControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getBody().getResults().get(0).getText()).isEqualTo("Original comment");
     }
 
+    @Test
+    void getComments_ShouldRunSingleStatementRegardlessOfAuthors() {
+        for (UsersDao commenter : new UsersDao[] {otherUser, admin}) {
+            CommentsDao extra = new CommentsDao();
+            extra.setText("Comment from " + commenter.getEmail());
+            extra.setCreatedAt(LocalDateTime.now());
+            extra.setAuthor(commenter);
+            extra.setAd(ad);
+            commentRepository.save(extra);
+        }
+        statistics.clear();
+
+        ResponseEntity<CommentsDto> response =
+                restTemplate.getForEntity(
+                        baseUrl() + "/ads/{adId}/comments", CommentsDto.class, ad.getPk());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).hasSize(3);
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void getComments_WithLimit_ShouldWalkPagesByCursor() {
+        LocalDateTime createdAt = comment.getCreatedAt();
+        for (int i = 1; i <= 2; i++) {
+            CommentsDao older = new CommentsDao();
+            older.setText("Older " + i);
+            older.setCreatedAt(createdAt.minusMinutes(i));
+            older.setAuthor(otherUser);
+            older.setAd(ad);
+            commentRepository.save(older);
+        }
+        commentCountReconciler.reconcile();
+
+        CommentsDto first =
+                restTemplate.getForObject(
+                        baseUrl() + "/ads/{adId}/comments?limit=2", CommentsDto.class, ad.getPk());
+        CommentsDto second =
+                restTemplate.getForObject(
+                        baseUrl() + "/ads/{adId}/comments?limit=2&cursor={cursor}",
+                        CommentsDto.class,
+                        ad.getPk(),
+                        first.getNext());
+
+        assertThat(first.getResults())
+                .extracting(CommentDto::getText)
+                .containsExactly("Original comment", "Older 1");
+        assertThat(first.getNext()).isNotNull();
+        assertThat(first.getCount()).isEqualTo(3);
+        assertThat(second.getResults()).extracting(CommentDto::getText).containsExactly("Older 2");
+        assertThat(second.getNext()).isNull();
+        assertThat(second.getCount()).isEqualTo(3);
+    }
+
+    @Test
+    void getComments_WithLimit_ShouldRefreshCountAfterNewComment() {
+        String url = baseUrl() + "/ads/{adId}/comments?limit=1";
+        CommentsDto before = restTemplate.getForObject(url, CommentsDto.class, ad.getPk());
+
+        CreateOrUpdateCommentDto newComment = new CreateOrUpdateCommentDto();
+        newComment.setText("Another comment");
+        withAuth(otherUser.getEmail(), otherPassword)
+                .postForEntity(
+                        baseUrl() + "/ads/{adId}/comments",
+                        newComment,
+                        CommentDto.class,
+                        ad.getPk());
+        CommentsDto after = restTemplate.getForObject(url, CommentsDto.class, ad.getPk());
+
+        assertThat(before.getCount()).isEqualTo(1);
+        assertThat(after.getCount()).isEqualTo(2);
+        assertThat(after.getResults())
+                .extracting(CommentDto::getText)
+                .containsExactly("Another comment");
+    }
+
     @Test
     void addComment_ShouldCreateComment() {
+        int commentCount = storedCommentCount();
         CreateOrUpdateCommentDto newComment = new CreateOrUpdateCommentDto();
         newComment.setText("New comment");
 
@@ -122,16 +214,19 @@ class CommentControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getBody().getAuthorFirstName()).isEqualTo(otherUser.getFirstName());
 
         assertThat(commentRepository.countByAdPk(ad.getPk())).isEqualTo(2);
+        assertThat(storedCommentCount()).isEqualTo(commentCount + 1);
     }
 
     @Test
     void deleteComment_ByAuthor_ShouldReturnOk() {
+        int commentCount = storedCommentCount();
         ResponseEntity<Void> response = withAuth(author.getEmail(), authorPassword)
                 .exchange(baseUrl() + "/ads/{adId}/comments/{commentId}",
                         HttpMethod.DELETE, null, Void.class, ad.getPk(), comment.getPk());
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(commentRepository.findById(comment.getPk())).isEmpty();
+        assertThat(storedCommentCount()).isEqualTo(commentCount - 1);
     }
 
     @Test
@@ -280,4 +375,9 @@ class CommentControllerIntegrationTest extends AbstractIntegrationTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
-}
\ No newline at end of file
+
+    /** Счётчик комментариев объявления, хранимый в {@code ads.comment_count}. */
+    private int storedCommentCount() {
+        return adRepository.findById(ad.getPk()).orElseThrow().getCommentCount();
+    }
+}
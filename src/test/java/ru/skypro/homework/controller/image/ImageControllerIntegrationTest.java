@@ -5,8 +5,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 
 import ru.skypro.homework.AbstractIntegrationTest;
 import ru.skypro.homework.service.ImageService;
@@ -15,6 +20,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 public class ImageControllerIntegrationTest extends AbstractIntegrationTest {
 
@@ -37,7 +43,7 @@ public class ImageControllerIntegrationTest extends AbstractIntegrationTest {
 
         // дополнительная проверка: загружается ли файл через сервис напрямую
         ImageService.ImageData serviceData = imageService.loadAvatar("avatar.jpg");
-        assertThat(serviceData.getContent()).isEqualTo(content);
+        assertThat(serviceData.getResource().getInputStream().readAllBytes()).isEqualTo(content);
 
         // when
         ResponseEntity<byte[]> response = restTemplate.getForEntity(
@@ -66,7 +72,7 @@ public class ImageControllerIntegrationTest extends AbstractIntegrationTest {
 
         // дополнительная проверка через сервис
         ImageService.ImageData serviceData = imageService.loadAdImage("ad.jpg");
-        assertThat(serviceData.getContent()).isEqualTo(content);
+        assertThat(serviceData.getResource().getInputStream().readAllBytes()).isEqualTo(content);
 
         // when
         ResponseEntity<byte[]> response = restTemplate.getForEntity(
@@ -77,6 +83,97 @@ public class ImageControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getBody()).isEqualTo(content);
     }
 
+    @Test
+    void getAdImage_WithRange_ShouldReturnPartialContent() throws IOException {
+        Path adPath = Paths.get(adImageDir, "ranged.jpg");
+        Files.write(adPath, "0123456789".getBytes());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setRange(List.of(HttpRange.createByteRange(2, 5)));
+        ResponseEntity<byte[]> response = restTemplate.exchange(
+                baseUrl() + "/ads-images/ranged.jpg",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getBody()).isEqualTo("2345".getBytes());
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+                .isEqualTo("bytes 2-5/10");
+    }
+
+    @Test
+    void getAdImage_WithMatchingETag_ShouldReturnNotModified() throws IOException {
+        Files.write(Paths.get(adImageDir, "cached.jpg"), "fake-ad-content".getBytes());
+        ResponseEntity<byte[]> first = restTemplate.getForEntity(
+                baseUrl() + "/ads-images/cached.jpg", byte[].class);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"cached.jpg\"");
+        assertThat(first.getHeaders().getCacheControl()).contains("max-age=31536000", "immutable");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<byte[]> second = restTemplate.exchange(
+                baseUrl() + "/ads-images/cached.jpg",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
+    }
+
+    @Test
+    void getAdImage_WithoutVariant_ShouldServeOriginalWithoutLongCaching() throws IOException {
+        Files.write(Paths.get(adImageDir, "pending.jpg"), "fake-ad-content".getBytes());
+        ResponseEntity<byte[]> first = restTemplate.getForEntity(
+                baseUrl() + "/ads-images/pending.jpg?size=thumb", byte[].class);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"pending.jpg\"");
+        assertThat(first.getHeaders().getCacheControl()).isEqualTo("no-cache");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<byte[]> second = restTemplate.exchange(
+                baseUrl() + "/ads-images/pending.jpg?size=thumb",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getHeaders().getCacheControl()).isEqualTo("no-cache");
+    }
+
+    @Test
+    void getAvatar_ShouldRevalidateByETag() {
+        String url = imageService.saveAvatar(avatar("old-avatar"), 987654);
+        ResponseEntity<byte[]> first = restTemplate.getForEntity(baseUrl() + url, byte[].class);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(first.getHeaders().getLastModified()).isPositive();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<byte[]> unchanged = restTemplate.exchange(
+                baseUrl() + url,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+        assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        String newUrl = imageService.saveAvatar(avatar("new-avatar-content"), 987654);
+        ResponseEntity<byte[]> changed = restTemplate.exchange(
+                baseUrl() + newUrl,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody()).isEqualTo(jpeg("new-avatar-content"));
+    }
+
     @Test
     void getAdImage_ShouldReturn404_WhenNotExists() {
         ResponseEntity<byte[]> response = restTemplate.getForEntity(
@@ -84,4 +181,8 @@ public class ImageControllerIntegrationTest extends AbstractIntegrationTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
-}
\ No newline at end of file
+
+    private static MockMultipartFile avatar(String content) {
+        return new MockMultipartFile("image", "avatar.jpg", "image/jpeg", jpeg(content));
+    }
+}
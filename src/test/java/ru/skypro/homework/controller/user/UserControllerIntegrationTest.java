@@ -2,6 +2,7 @@ package ru.skypro.homework.controller.user;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,6 +27,7 @@ import ru.skypro.homework.model.UsersDao;
 import ru.skypro.homework.repository.AdRepository;
 import ru.skypro.homework.repository.CommentRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.impl.LocalImageStorage;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -36,6 +38,7 @@ class UserControllerIntegrationTest extends AbstractIntegrationTest {
     @Autowired private UserRepository userRepository;
     @Autowired private AdRepository adRepository;
     @Autowired private CommentRepository commentRepository;
+    @Autowired private MeterRegistry meterRegistry;
 
     @Value("${app.image.avatar-dir}")
     private String avatarDir;
@@ -127,6 +130,27 @@ class UserControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(successLogin.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
+    @Test
+    void getUser_AfterUserRecreated_ShouldNotAcceptOldPassword() {
+        ResponseEntity<UserDto> before = withAuth(userEmail, userPassword)
+                .getForEntity(baseUrl() + "/users/me", UserDto.class);
+        assertThat(before.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        userRepository.delete(testUser);
+        UsersDao recreated = new UsersDao();
+        recreated.setEmail(userEmail);
+        recreated.setPassword(passwordEncoder.encode("otherPassword"));
+        recreated.setFirstName("Иван");
+        recreated.setLastName("Иванов");
+        recreated.setPhone("+7 (999) 123-45-67");
+        recreated.setRole(Role.USER);
+        userRepository.save(recreated);
+
+        ResponseEntity<UserDto> after = withAuth(userEmail, userPassword)
+                .getForEntity(baseUrl() + "/users/me", UserDto.class);
+        assertThat(after.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
     @Test
     void setPassword_WithWrongCurrent_ShouldReturnBadRequest() {
         NewPasswordDto passwordDto = new NewPasswordDto();
@@ -143,7 +167,7 @@ class UserControllerIntegrationTest extends AbstractIntegrationTest {
     @Test
     void updateUserImage_ShouldReturnOk() throws Exception {
         // given
-        byte[] imageContent = "new avatar".getBytes();
+        byte[] imageContent = jpeg("new avatar");
         ByteArrayResource imagePart = new ByteArrayResource(imageContent) {
             @Override
             public String getFilename() {
@@ -176,12 +200,37 @@ class UserControllerIntegrationTest extends AbstractIntegrationTest {
         // Извлекаем имя файла из пути и проверяем его существование в реальной директории
         String imagePath = updated.getImage();
         String filename = Paths.get(imagePath).getFileName().toString();
-        Path expectedPath = Paths.get(avatarDir).resolve(filename);
+        Path expectedPath = LocalImageStorage.shardedPath(Paths.get(avatarDir), filename);
 
         assertThat(expectedPath).exists();
         assertThat(Files.readAllBytes(expectedPath)).isEqualTo(imageContent);
     }
 
+    @Test
+    void updateUserImage_ShouldLoadCurrentUserOncePerRequest() {
+        ByteArrayResource imagePart = new ByteArrayResource(jpeg("new avatar")) {
+            @Override
+            public String getFilename() {
+                return "avatar.jpg";
+            }
+        };
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("image", imagePart);
+        double savedBefore = meterRegistry.counter("app.current.user.lookups.saved").count();
+
+        ResponseEntity<UserDto> response = patchMultipartWithAuth(
+                baseUrl() + "/users/me/image",
+                body,
+                UserDto.class,
+                userEmail,
+                userPassword);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        // updateUserImage и getUser получают пользователя, но запрос к БД выполняется один раз
+        assertThat(meterRegistry.counter("app.current.user.lookups.saved").count())
+                .isEqualTo(savedBefore + 1);
+    }
+
     @Test
     void getUser_WithoutAuth_ShouldReturnUnauthorized() {
         ResponseEntity<UserDto> response = restTemplate.getForEntity(baseUrl() + "/users/me", UserDto.class);
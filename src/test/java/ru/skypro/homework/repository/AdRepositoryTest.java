@@ -2,17 +2,29 @@ package ru.skypro.homework.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
 import ru.skypro.homework.AbstractIntegrationTest;
 import ru.skypro.homework.dto.auth.Role;
 import ru.skypro.homework.model.AdsDao;
+import ru.skypro.homework.model.CommentsDao;
 import ru.skypro.homework.model.UsersDao;
+import ru.skypro.homework.repository.projection.AdOwnership;
+import ru.skypro.homework.repository.projection.AdSearchResult;
+import ru.skypro.homework.repository.projection.AdSummary;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 @Transactional
 class AdRepositoryTest extends AbstractIntegrationTest {
 
@@ -20,6 +32,20 @@ class AdRepositoryTest extends AbstractIntegrationTest {
 
     @Autowired private UserRepository userRepository;
 
+    @PersistenceContext private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics =
+                entityManager
+                        .getEntityManagerFactory()
+                        .unwrap(SessionFactory.class)
+                        .getStatistics();
+        statistics.clear();
+    }
+
     private UsersDao createTestUser(String email) {
         UsersDao user = new UsersDao();
         user.setEmail(email);
@@ -80,6 +106,118 @@ class AdRepositoryTest extends AbstractIntegrationTest {
         assertThat(count2).isEqualTo(0);
     }
 
+    @Test
+    void findSummariesAfter_ShouldReturnNextPageByKey() {
+        UsersDao user = createTestUser("author@test.com");
+        AdsDao[] ads = new AdsDao[3];
+        for (int i = 0; i < ads.length; i++) {
+            AdsDao ad = new AdsDao();
+            ad.setTitle("Ad " + i);
+            ad.setDescription("Desc " + i);
+            ad.setPrice(100 * i);
+            ad.setAuthor(user);
+            ads[i] = adRepository.saveAndFlush(ad);
+        }
+
+        List<AdSummary> page = adRepository.findSummariesAfter(ads[0].getPk(), PageRequest.of(0, 1));
+        assertThat(page).extracting(AdSummary::getPk).containsExactly(ads[1].getPk());
+        assertThat(page.get(0).getAuthorId()).isEqualTo(user.getId());
+        assertThat(page.get(0).getTitle()).isEqualTo("Ad 1");
+    }
+
+    @Test
+    void findAllSummaries_ShouldNotLoadEntitiesIntoPersistenceContext() {
+        UsersDao user = createTestUser("author@test.com");
+        for (int i = 0; i < 5; i++) {
+            AdsDao ad = new AdsDao();
+            ad.setTitle("Ad " + i);
+            ad.setDescription("Desc " + i);
+            ad.setPrice(100);
+            ad.setAuthor(user);
+            adRepository.save(ad);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<AdSummary> summaries = adRepository.findAllSummaries();
+        long summaryEntityLoads = statistics.getEntityLoadCount();
+        entityManager.clear();
+        statistics.clear();
+        List<AdsDao> entities = adRepository.findAll();
+        long entityLoads = statistics.getEntityLoadCount();
+
+        // Проекции не создают управляемых сущностей, полная выборка – по одной на строку
+        assertThat(summaries).hasSize(entities.size());
+        assertThat(summaryEntityLoads).isZero();
+        assertThat(entityLoads).isEqualTo(entities.size());
+    }
+
+    @Test
+    void search_ShouldRankTitleMatchesFirst_AndContinueByKey() {
+        UsersDao user = createTestUser("author@test.com");
+        AdsDao inDescription =
+                createAd(user, "Стол письменный", "Продаю велосипед вместе со столом");
+        AdsDao inTitle = createAd(user, "Велосипед горный", "Почти новый, 21 скорость");
+        AdsDao inBoth = createAd(user, "Велосипеды детские", "Два детских велосипеда");
+        createAd(user, "Диван", "Раскладной");
+
+        List<AdSearchResult> first = adRepository.search("велосипед", PageRequest.of(0, 2));
+        AdSearchResult last = first.get(first.size() - 1);
+        List<AdSearchResult> next =
+                adRepository.searchAfter(
+                        "велосипед", last.getRank(), last.getPk(), PageRequest.of(0, 2));
+
+        // Совпадение в заголовке весит больше, чем в описании; формы слова приводятся к основе
+        assertThat(first)
+                .extracting(AdSearchResult::getPk)
+                .containsExactly(inBoth.getPk(), inTitle.getPk());
+        assertThat(first.get(0).getAuthorId()).isEqualTo(user.getId());
+        assertThat(next).extracting(AdSearchResult::getPk).containsExactly(inDescription.getPk());
+    }
+
+    private AdsDao createAd(UsersDao author, String title, String description) {
+        AdsDao ad = new AdsDao();
+        ad.setTitle(title);
+        ad.setDescription(description);
+        ad.setPrice(1000);
+        ad.setAuthor(author);
+        return adRepository.saveAndFlush(ad);
+    }
+
+    @Test
+    void deleteAdByPk_ShouldCascadeCommentsInSingleStatement() {
+        UsersDao user = createTestUser("author@test.com");
+        AdsDao ad = createAd(user, "Ad", "Description");
+        for (int i = 0; i < 5; i++) {
+            CommentsDao comment = new CommentsDao();
+            comment.setText("Comment " + i);
+            comment.setCreatedAt(LocalDateTime.now());
+            comment.setAuthor(user);
+            comment.setAd(ad);
+            entityManager.persist(comment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        AdOwnership ownership = adRepository.findOwnershipByPk(ad.getPk()).orElseThrow();
+        int deleted = adRepository.deleteAdByPk(ad.getPk());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(ownership.getAuthorId()).isEqualTo(user.getId());
+        assertThat(deleted).isEqualTo(1);
+        assertThat(statements).isEqualTo(2);
+        Long comments =
+                entityManager
+                        .createQuery(
+                                "select count(c) from CommentsDao c where c.ad.pk = :pk",
+                                Long.class)
+                        .setParameter("pk", ad.getPk())
+                        .getSingleResult();
+        assertThat(comments).isZero();
+    }
+
     @Test
     void findById_ShouldReturnAdWithAuthor() {
         UsersDao user = createTestUser("author@test.com");
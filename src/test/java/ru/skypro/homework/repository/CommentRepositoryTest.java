@@ -2,8 +2,12 @@ package ru.skypro.homework.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
 import ru.skypro.homework.AbstractIntegrationTest;
@@ -11,11 +15,15 @@ import ru.skypro.homework.dto.auth.Role;
 import ru.skypro.homework.model.AdsDao;
 import ru.skypro.homework.model.CommentsDao;
 import ru.skypro.homework.model.UsersDao;
+import ru.skypro.homework.repository.projection.CommentSummary;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 @Transactional
 class CommentRepositoryTest extends AbstractIntegrationTest {
 
@@ -25,6 +33,20 @@ class CommentRepositoryTest extends AbstractIntegrationTest {
 
     @Autowired private UserRepository userRepository;
 
+    @PersistenceContext private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics =
+                entityManager
+                        .getEntityManagerFactory()
+                        .unwrap(SessionFactory.class)
+                        .getStatistics();
+        statistics.clear();
+    }
+
     private UsersDao createUser(String email) {
         UsersDao user = new UsersDao();
         user.setEmail(email);
@@ -73,6 +95,63 @@ class CommentRepositoryTest extends AbstractIntegrationTest {
         assertThat(comments.get(2).getText()).isEqualTo("First");
     }
 
+    @Test
+    void findByAdPkOrderByCreatedAtDesc_ShouldLoadAuthorsInSingleStatement() {
+        AdsDao ad = createAd(createUser("owner@test.com"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            createComment(createUser("author" + i + "@test.com"), ad, "Text " + i, now);
+        }
+        entityManager.clear();
+        statistics.clear();
+
+        List<CommentsDao> comments = commentRepository.findByAdPkOrderByCreatedAtDesc(ad.getPk());
+        comments.forEach(comment -> comment.getAuthor().getFirstName());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(comments).hasSize(5);
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void findSummariesByAdPk_ShouldReturnCommentsWithAuthorSorted() {
+        UsersDao author = createUser("author@test.com");
+        AdsDao ad = createAd(author);
+
+        LocalDateTime now = LocalDateTime.now();
+        createComment(author, ad, "First", now.minusHours(1));
+        createComment(author, ad, "Second", now);
+
+        List<CommentSummary> comments = commentRepository.findSummariesByAdPk(ad.getPk());
+
+        assertThat(comments).extracting(CommentSummary::getText).containsExactly("Second", "First");
+        assertThat(comments.get(0).getAuthorId()).isEqualTo(author.getId());
+        assertThat(comments.get(0).getAuthorFirstName()).isEqualTo(author.getFirstName());
+    }
+
+    @Test
+    void findSummariesByAdPkBefore_ShouldContinueAfterKey_WhenCreatedAtIsEqual() {
+        UsersDao author = createUser("author@test.com");
+        AdsDao ad = createAd(author);
+
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        createComment(author, ad, "Oldest", now.minusHours(1));
+        createComment(author, ad, "Same 1", now);
+        createComment(author, ad, "Same 2", now);
+        createComment(author, createAd(author), "Other ad", now.minusHours(2));
+
+        List<CommentSummary> first =
+                commentRepository.findSummariesByAdPk(ad.getPk(), PageRequest.of(0, 2));
+        CommentSummary last = first.get(first.size() - 1);
+        List<CommentSummary> next =
+                commentRepository.findSummariesByAdPkBefore(
+                        ad.getPk(), last.getCreatedAt(), last.getPk(), PageRequest.of(0, 2));
+
+        assertThat(first).extracting(CommentSummary::getText).containsExactly("Same 2", "Same 1");
+        assertThat(next).extracting(CommentSummary::getText).containsExactly("Oldest");
+        assertThat(next.get(0).getAuthorId()).isEqualTo(author.getId());
+    }
+
     @Test
     void findByPkAndAdPk_ShouldReturnComment_WhenExists() {
         UsersDao author = createUser("author@test.com");
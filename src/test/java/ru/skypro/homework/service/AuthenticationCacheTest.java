@@ -0,0 +1,93 @@
+package ru.skypro.homework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import ru.skypro.homework.constants.CacheNames;
+
+import java.util.List;
+
+class AuthenticationCacheTest {
+
+    private static final String USERNAME = "user@test.com";
+
+    private Cache<Object, Object> entries;
+    private AuthenticationCache authenticationCache;
+    private UserDetails user;
+
+    @BeforeEach
+    void setUp() {
+        entries = Caffeine.newBuilder().build();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(
+                List.of(
+                        new TransactionAwareCacheDecorator(
+                                new CaffeineCache(CacheNames.AUTHENTICATIONS, entries))));
+        cacheManager.afterPropertiesSet();
+        authenticationCache = new AuthenticationCache(cacheManager);
+        user = User.withUsername(USERNAME).password("").roles("USER").build();
+    }
+
+    @Test
+    void find_afterPut_shouldReturnUserOnlyForSamePassword() {
+        // given
+        long stamp = authenticationCache.stamp(USERNAME);
+
+        // when
+        authenticationCache.put(USERNAME, "password", user, stamp);
+
+        // then
+        assertThat(authenticationCache.find(USERNAME, "password")).contains(user);
+        assertThat(authenticationCache.find(USERNAME, "other")).isEmpty();
+    }
+
+    @Test
+    void stamp_withoutPut_shouldNotTakeCacheCapacity() {
+        // given: неудачные входы неизвестных пользователей и с неверным паролем
+        for (int i = 0; i < 100; i++) {
+            authenticationCache.stamp("unknown" + i + "@test.com");
+        }
+        authenticationCache.stamp(USERNAME);
+
+        // then
+        assertThat(entries.estimatedSize()).isZero();
+        assertThat(authenticationCache.find(USERNAME, "password")).isEmpty();
+    }
+
+    @Test
+    void put_whenEvictedDuringVerification_shouldNotCache() {
+        // given: проверка старого пароля началась до его смены
+        long stamp = authenticationCache.stamp(USERNAME);
+        authenticationCache.evict(USERNAME);
+
+        // when
+        authenticationCache.put(USERNAME, "old-password", user, stamp);
+
+        // then
+        assertThat(authenticationCache.find(USERNAME, "old-password")).isEmpty();
+    }
+
+    @Test
+    void put_whenCachedEntryEvictedDuringVerification_shouldNotCache() {
+        // given
+        authenticationCache.put(
+                USERNAME, "old-password", user, authenticationCache.stamp(USERNAME));
+        long stamp = authenticationCache.stamp(USERNAME);
+        authenticationCache.evict(USERNAME);
+
+        // when
+        authenticationCache.put(USERNAME, "old-password", user, stamp);
+
+        // then
+        assertThat(authenticationCache.find(USERNAME, "old-password")).isEmpty();
+    }
+}
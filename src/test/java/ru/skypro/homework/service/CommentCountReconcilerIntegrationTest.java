@@ -0,0 +1,86 @@
+package ru.skypro.homework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.skypro.homework.AbstractIntegrationTest;
+import ru.skypro.homework.dto.auth.Role;
+import ru.skypro.homework.model.AdsDao;
+import ru.skypro.homework.model.CommentsDao;
+import ru.skypro.homework.model.UsersDao;
+import ru.skypro.homework.repository.AdRepository;
+import ru.skypro.homework.repository.CommentRepository;
+import ru.skypro.homework.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+class CommentCountReconcilerIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired private CommentCountReconciler reconciler;
+    @Autowired private AdRepository adRepository;
+    @Autowired private CommentRepository commentRepository;
+    @Autowired private UserRepository userRepository;
+
+    private UsersDao user;
+
+    @BeforeEach
+    void setUp() {
+        user = new UsersDao();
+        user.setEmail("counter@test.com");
+        user.setPassword("password");
+        user.setFirstName("Иван");
+        user.setLastName("Иванов");
+        user.setPhone("+7 (999) 123-45-67");
+        user.setRole(Role.USER);
+        userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        adRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void reconcile_shouldRepairDriftedCounters() {
+        // given: комментарии сохранены в обход сервиса, счётчики не изменены
+        AdsDao commented = createAd();
+        AdsDao empty = createAd();
+        createComment(commented);
+        createComment(commented);
+
+        // when
+        int fixed = reconciler.reconcile();
+
+        // then
+        assertThat(fixed).isGreaterThanOrEqualTo(1);
+        assertThat(adRepository.findById(commented.getPk()).orElseThrow().getCommentCount())
+                .isEqualTo(2);
+        assertThat(adRepository.findById(empty.getPk()).orElseThrow().getCommentCount())
+                .isZero();
+        assertThat(reconciler.reconcile()).isZero();
+    }
+
+    private AdsDao createAd() {
+        AdsDao ad = new AdsDao();
+        ad.setTitle("Ad");
+        ad.setDescription("Description");
+        ad.setPrice(100);
+        ad.setAuthor(user);
+        return adRepository.save(ad);
+    }
+
+    private void createComment(AdsDao ad) {
+        CommentsDao comment = new CommentsDao();
+        comment.setText("Comment text");
+        comment.setCreatedAt(LocalDateTime.now());
+        comment.setAuthor(user);
+        comment.setAd(ad);
+        commentRepository.save(comment);
+    }
+}
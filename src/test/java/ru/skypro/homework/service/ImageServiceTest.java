@@ -3,13 +3,30 @@ package ru.skypro.homework.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.skypro.homework.constants.CacheNames;
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.dto.image.ImageSize;
 import ru.skypro.homework.exception.ImageNotFoundException;
 import ru.skypro.homework.exception.InvalidImageException;
+import ru.skypro.homework.repository.ImageBlobRepository;
+import ru.skypro.homework.service.impl.LocalImageStorage;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -23,72 +40,153 @@ class ImageServiceTest {
 
     @BeforeEach
     void setUp() {
-        imageService = new ImageService();
-        // Подменяем директории для тестов через пакетные сеттеры
-        imageService.setAvatarDir(tempDir.toString());
-        imageService.setAdImageDir(tempDir.toString());
+        // Обе области хранятся во временной директории
+        LocalImageStorage storage =
+                new LocalImageStorage(Map.of(ImageArea.ADS, tempDir, ImageArea.AVATARS, tempDir));
+        imageService =
+                new ImageService(
+                        storage,
+                        new InMemoryImageBlobRepository(),
+                        new DeferredFileActions(Runnable::run),
+                        new ConcurrentMapCacheManager(CacheNames.HOT_IMAGES),
+                        TransactionOperations.withoutTransaction());
+        imageService.setHotImageMaxEntrySize(1024);
+        imageService.setVariantMaxPixels(1_000_000);
     }
 
     @Test
-    void saveImage_shouldSaveFileAndReturnUrl() {
+    void saveAdImage_shouldSaveFileIntoShardAndReturnUrl() {
         // given
         MockMultipartFile file = new MockMultipartFile(
-                "image", "test.jpg", "image/jpeg", "test image content".getBytes());
-        String directory = tempDir.toString();
-        String urlPrefix = "/test-prefix/";
+                "image", "test.jpg", "image/jpeg", jpeg("test image content"));
+        String urlPrefix = "/ads-images/";
 
         // when
-        String savedUrl = imageService.saveImage(file, directory, urlPrefix);
+        String savedUrl = imageService.saveAdImage(file);
 
         // then
         assertThat(savedUrl).startsWith(urlPrefix);
         String filename = savedUrl.substring(urlPrefix.length());
-        Path savedPath = tempDir.resolve(filename);
+        Path savedPath = LocalImageStorage.shardedPath(tempDir, filename);
+        assertThat(savedPath).exists();
+        assertThat(tempDir.relativize(savedPath).getNameCount()).isEqualTo(3);
+        assertThat(tempDir.resolve(filename)).doesNotExist();
+    }
+
+    @Test
+    void saveAdImage_shouldStoreIdenticalContentOnce_andDeleteWithLastReference()
+            throws IOException {
+        // given
+        MockMultipartFile first =
+                new MockMultipartFile("image", "a.jpg", "image/jpeg", jpeg("same photo"));
+        MockMultipartFile second =
+                new MockMultipartFile("image", "b.jpeg", "image/jpeg", jpeg("same photo"));
+
+        // when
+        String firstUrl = imageService.saveAdImage(first);
+        String secondUrl = imageService.saveAdImage(second);
+
+        // then
+        assertThat(secondUrl).isEqualTo(firstUrl);
+        String filename = firstUrl.substring("/ads-images/".length());
+        assertThat(filename).matches("[0-9a-f]{64}\\.jpg");
+        Path savedPath = LocalImageStorage.shardedPath(tempDir, filename);
+
+        imageService.deleteAdImage(firstUrl);
         assertThat(savedPath).exists();
+        imageService.deleteAdImage(secondUrl);
+        assertThat(savedPath).doesNotExist();
     }
 
     @Test
-    void saveImage_shouldThrowInvalidImageException_whenContentTypeNotAllowed() {
+    void saveAdImage_shouldThrowInvalidImageException_whenContentTypeNotAllowed() {
         // given
         MockMultipartFile file = new MockMultipartFile(
                 "image", "test.txt", "text/plain", "test content".getBytes());
 
         // when/then
-        assertThatThrownBy(() -> imageService.saveImage(file, tempDir.toString(), "/prefix"))
+        assertThatThrownBy(() -> imageService.saveAdImage(file))
                 .isInstanceOf(InvalidImageException.class)
                 .hasMessageContaining("Неподдерживаемый тип файла");
     }
 
     @Test
-    void saveImage_shouldThrowInvalidImageException_whenFileIsEmpty() {
+    void saveAdImage_shouldThrowInvalidImageException_whenContentIsNotImage() throws IOException {
+        // given
+        MockMultipartFile file = new MockMultipartFile(
+                "image", "fake.jpg", "image/jpeg", "<html>not an image</html>".getBytes());
+
+        // when/then
+        assertThatThrownBy(() -> imageService.saveAdImage(file))
+                .isInstanceOf(InvalidImageException.class)
+                .hasMessageContaining("не является изображением");
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void saveAdImage_shouldThrowInvalidImageException_whenFileIsEmpty() {
         // given
         MockMultipartFile emptyFile = new MockMultipartFile(
                 "image", "empty.jpg", "image/jpeg", new byte[0]);
 
         // when/then
-        assertThatThrownBy(() -> imageService.saveImage(emptyFile, tempDir.toString(), "/prefix"))
+        assertThatThrownBy(() -> imageService.saveAdImage(emptyFile))
                 .isInstanceOf(InvalidImageException.class)
                 .hasMessageContaining("файл пуст");
     }
 
     @Test
-    void deleteImage_shouldDeleteFile_whenExists() throws IOException {
+    void deleteAdImage_shouldDeleteFile_whenExists() throws IOException {
         // given
         Path testFile = tempDir.resolve("test.jpg");
         Files.write(testFile, "content".getBytes());
         String imagePath = "/some/prefix/test.jpg";
 
         // when
-        imageService.deleteImage(imagePath, tempDir.toString());
+        imageService.deleteAdImage(imagePath);
 
         // then
         assertThat(testFile).doesNotExist();
     }
 
     @Test
-    void deleteImage_shouldNotThrow_whenFileNotExists() {
+    void deleteAvatar_insideTransaction_shouldDeleteFileOnlyAfterCommit() {
+        // given
+        String url = imageService.saveAvatar(avatar("avatar"), 5);
+        Path path = LocalImageStorage.shardedPath(tempDir, url.substring("/avatars/".length()));
+
+        // when: откат – файл остаётся
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            imageService.deleteAvatar(url);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(path).exists();
+
+        // when: фиксация – файл удаляется
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            imageService.deleteAvatar(url);
+            assertThat(path).exists();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // then
+        assertThat(path).doesNotExist();
+    }
+
+    @Test
+    void deleteAdImage_shouldNotThrow_whenFileNotExists() {
         // when/then
-        imageService.deleteImage("/non/existing.jpg", tempDir.toString());
+        imageService.deleteAdImage("/non/existing.jpg");
         // просто не должно быть исключения
     }
 
@@ -104,7 +202,7 @@ class ImageServiceTest {
         ImageService.ImageData imageData = imageService.loadAdImage(filename);
 
         // then
-        assertThat(imageData.getContent()).isEqualTo(content);
+        assertThat(imageData.getResource().getInputStream().readAllBytes()).isEqualTo(content);
         assertThat(imageData.getContentType()).isEqualTo("image/jpeg");
     }
 
@@ -115,4 +213,165 @@ class ImageServiceTest {
                 .isInstanceOf(ImageNotFoundException.class)
                 .hasMessageContaining("не существует");
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadAdImage_shouldServeCachedContent_untilImageDeleted() throws IOException {
+        // given
+        Path filePath = tempDir.resolve("hot.jpg");
+        Files.write(filePath, "hot image".getBytes());
+        imageService.loadAdImage("hot.jpg");
+        // содержимое на диске меняется в обход сервиса – из кэша отдаётся прежнее
+        Files.write(filePath, "changed on disk".getBytes());
+
+        // when
+        ImageService.ImageData cached = imageService.loadAdImage("hot.jpg");
+
+        // then
+        assertThat(cached.getResource().getInputStream().readAllBytes())
+                .isEqualTo("hot image".getBytes());
+        assertThat(cached.getContentType()).isEqualTo("image/jpeg");
+
+        imageService.deleteAdImage("/ads-images/hot.jpg");
+        assertThatThrownBy(() -> imageService.loadAdImage("hot.jpg"))
+                .isInstanceOf(ImageNotFoundException.class);
+    }
+
+    @Test
+    void saveAvatar_shouldWriteEachUploadUnderNewName() throws IOException {
+        // given
+        String oldUrl = imageService.saveAvatar(avatar("old"), 7);
+        String oldFilename = oldUrl.substring("/avatars/".length());
+        imageService.loadAvatar(oldFilename);
+
+        // when
+        String newUrl = imageService.saveAvatar(avatar("new"), 7);
+
+        // then
+        assertThat(newUrl).startsWith("/avatars/7-").isNotEqualTo(oldUrl);
+        ImageService.ImageData old = imageService.loadAvatar(oldFilename);
+        assertThat(old.getResource().getInputStream().readAllBytes()).isEqualTo(jpeg("old"));
+        assertThat(imageService.saveAvatar(avatar("new"), 7)).isEqualTo(newUrl);
+        assertThat(imageService.saveAvatar(avatar("new"), 8)).isNotEqualTo(newUrl);
+    }
+
+    @Test
+    void createVariants_shouldCreateScaledVariants_andLoadThemBySize() throws IOException {
+        // given
+        BufferedImage picture = new BufferedImage(1200, 600, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(picture, "jpeg", jpeg);
+        MockMultipartFile file =
+                new MockMultipartFile("image", "big.jpg", "image/jpeg", jpeg.toByteArray());
+
+        // when
+        String url = imageService.saveAdImage(file);
+        String filename = url.substring("/ads-images/".length());
+        imageService.createVariants(url);
+
+        // then
+        BufferedImage thumb = ImageIO.read(imageService
+                .loadAdImage(filename, ImageSize.THUMB).getImageData().getResource()
+                .getInputStream());
+        assertThat(thumb.getWidth()).isEqualTo(320);
+        assertThat(thumb.getHeight()).isEqualTo(160);
+        BufferedImage medium = ImageIO.read(imageService
+                .loadAdImage(filename, ImageSize.MEDIUM).getImageData().getResource()
+                .getInputStream());
+        assertThat(medium.getWidth()).isEqualTo(800);
+
+        Path thumbPath = LocalImageStorage.shardedPath(
+                tempDir, imageService.variantFilename(filename, ImageSize.THUMB));
+        assertThat(thumbPath).exists();
+        imageService.deleteAdImage(url);
+        assertThat(thumbPath).doesNotExist();
+    }
+
+    @Test
+    void createVariants_overPixelLimit_shouldNotDecodeImage() throws IOException {
+        // given: 1200x1000 пикселей больше лимита теста в 1 000 000
+        BufferedImage picture = new BufferedImage(1200, 1000, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(picture, "png", png);
+        MockMultipartFile file =
+                new MockMultipartFile("image", "huge.png", "image/png", png.toByteArray());
+        String url = imageService.saveAdImage(file);
+        String filename = url.substring("/ads-images/".length());
+
+        // when
+        imageService.createVariants(url);
+
+        // then
+        assertThat(imageService.loadAdImage(filename, ImageSize.THUMB).isFallback()).isTrue();
+    }
+
+    @Test
+    void loadAdImage_withoutVariant_shouldFallBackToOriginal() throws IOException {
+        // given
+        Files.write(tempDir.resolve("legacy.jpg"), "legacy image".getBytes());
+
+        // when
+        ImageService.AdImageVariant variant =
+                imageService.loadAdImage("legacy.jpg", ImageSize.THUMB);
+
+        // then
+        assertThat(variant.isFallback()).isTrue();
+        assertThat(variant.getImageData().getResource().getInputStream().readAllBytes())
+                .isEqualTo("legacy image".getBytes());
+    }
+
+    /** Счётчики ссылок в памяти вместо таблицы {@code image_blobs}. */
+    private static class InMemoryImageBlobRepository implements ImageBlobRepository {
+
+        private final Map<String, Integer> refCounts = new HashMap<>();
+
+        @Override
+        public void incrementRefCount(String filename) {
+            refCounts.merge(filename, 1, Integer::sum);
+        }
+
+        @Override
+        public Optional<Integer> findRefCount(String filename) {
+            return Optional.ofNullable(refCounts.get(filename));
+        }
+
+        @Override
+        public Optional<Integer> lockRefCount(String filename) {
+            return findRefCount(filename);
+        }
+
+        @Override
+        public int decrementRefCount(String filename) {
+            Integer refCount = refCounts.get(filename);
+            if (refCount == null || refCount == 0) {
+                return 0;
+            }
+            refCounts.put(filename, refCount - 1);
+            return 1;
+        }
+
+        @Override
+        public int deleteIfUnreferenced(String filename) {
+            return refCounts.remove(filename, 0) ? 1 : 0;
+        }
+
+        @Override
+        public int deleteByFilename(String filename) {
+            return refCounts.remove(filename) != null ? 1 : 0;
+        }
+    }
+
+    private static MockMultipartFile avatar(String content) {
+        return new MockMultipartFile("image", "avatar.jpg", "image/jpeg", jpeg(content));
+    }
+
+    /** Сигнатура JPEG и текст: загрузка проверяет магические байты файла. */
+    private static byte[] jpeg(String content) {
+        byte[] text = content.getBytes();
+        byte[] result = new byte[text.length + 3];
+        result[0] = (byte) 0xFF;
+        result[1] = (byte) 0xD8;
+        result[2] = (byte) 0xFF;
+        System.arraycopy(text, 0, result, 3, text.length);
+        return result;
+    }
+}
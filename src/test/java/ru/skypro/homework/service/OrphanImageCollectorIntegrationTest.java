@@ -0,0 +1,155 @@
+package ru.skypro.homework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import ru.skypro.homework.AbstractIntegrationTest;
+import ru.skypro.homework.dto.auth.Role;
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.model.AdsDao;
+import ru.skypro.homework.model.UsersDao;
+import ru.skypro.homework.repository.AdRepository;
+import ru.skypro.homework.repository.ImageBlobRepository;
+import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.impl.LocalImageStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+class OrphanImageCollectorIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired private OrphanImageCollector collector;
+    @Autowired private AdRepository adRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ImageBlobRepository imageBlobRepository;
+    @Autowired private DatabaseUserDetailsManager userDetailsManager;
+
+    @Value("${app.image.ad-dir}")
+    private String adImageDir;
+
+    @Value("${app.image.avatar-dir}")
+    private String avatarDir;
+
+    private UsersDao user;
+
+    @BeforeEach
+    void setUp() {
+        user = new UsersDao();
+        user.setEmail("gc@test.com");
+        user.setPassword("password");
+        user.setFirstName("Иван");
+        user.setLastName("Иванов");
+        user.setPhone("+7 (999) 123-45-67");
+        user.setRole(Role.USER);
+        user.setImage("/avatars/kept.jpg");
+        userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        adRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void collect_shouldDeleteOnlyOldUnreferencedAdImages() throws IOException {
+        // given
+        AdsDao ad = new AdsDao();
+        ad.setTitle("Ad");
+        ad.setDescription("Description");
+        ad.setPrice(100);
+        ad.setAuthor(user);
+        ad.setImage("/ads-images/kept.jpg");
+        adRepository.save(ad);
+
+        Path root = Paths.get(adImageDir);
+        Path kept = oldFile(LocalImageStorage.shardedPath(root, "kept.jpg"));
+        Path keptVariant = oldFile(LocalImageStorage.shardedPath(root, "kept_thumb.jpg"));
+        Path orphan = oldFile(LocalImageStorage.shardedPath(root, "orphan.jpg"));
+        Path orphanVariant = oldFile(LocalImageStorage.shardedPath(root, "orphan_thumb.jpg"));
+        Path legacyOrphan = oldFile(root.resolve("legacy.jpg"));
+        Path fresh = LocalImageStorage.shardedPath(root, "fresh.jpg");
+        Files.createDirectories(fresh.getParent());
+        Files.write(fresh, jpeg("fresh"));
+
+        // when
+        int deleted = collector.collect(ImageArea.ADS);
+
+        // then
+        assertThat(deleted).isEqualTo(3);
+        assertThat(kept).exists();
+        assertThat(keptVariant).exists();
+        assertThat(fresh).exists();
+        assertThat(orphan).doesNotExist();
+        assertThat(orphanVariant).doesNotExist();
+        assertThat(legacyOrphan).doesNotExist();
+    }
+
+    @Test
+    void collect_shouldDeleteImagesOfAdsRemovedWithTheirAuthor() throws IOException {
+        // given: счётчик ссылок не уменьшается при каскадном удалении объявлений с автором
+        UsersDao seller = new UsersDao();
+        seller.setEmail("seller@test.com");
+        seller.setPassword("password");
+        seller.setFirstName("Пётр");
+        seller.setLastName("Петров");
+        seller.setPhone("+7 (999) 765-43-21");
+        seller.setRole(Role.USER);
+        userRepository.save(seller);
+        AdsDao ad = new AdsDao();
+        ad.setTitle("Ad");
+        ad.setDescription("Description");
+        ad.setPrice(100);
+        ad.setAuthor(seller);
+        ad.setImage("/ads-images/sold.jpg");
+        adRepository.save(ad);
+        imageBlobRepository.incrementRefCount("sold.jpg");
+
+        Path root = Paths.get(adImageDir);
+        Path image = oldFile(LocalImageStorage.shardedPath(root, "sold.jpg"));
+        Path variant = oldFile(LocalImageStorage.shardedPath(root, "sold_thumb.jpg"));
+        userDetailsManager.deleteUser(seller.getEmail());
+
+        // when
+        int deleted = collector.collect(ImageArea.ADS);
+
+        // then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(image).doesNotExist();
+        assertThat(variant).doesNotExist();
+        assertThat(imageBlobRepository.findRefCount("sold.jpg")).isEmpty();
+    }
+
+    @Test
+    void collect_shouldDeleteAvatarsWithoutUser() throws IOException {
+        // given
+        Path root = Paths.get(avatarDir);
+        Path kept = oldFile(LocalImageStorage.shardedPath(root, "kept.jpg"));
+        Path orphan = oldFile(LocalImageStorage.shardedPath(root, "12345.jpg"));
+
+        // when
+        collector.collect(ImageArea.AVATARS);
+
+        // then
+        assertThat(kept).exists();
+        assertThat(orphan).doesNotExist();
+    }
+
+    /** Создаёт файл, изменённый раньше периода ожидания сборщика. */
+    private static Path oldFile(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, jpeg(path.getFileName().toString()));
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofDays(7))));
+        return path;
+    }
+}
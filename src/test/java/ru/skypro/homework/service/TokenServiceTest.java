@@ -0,0 +1,111 @@
+package ru.skypro.homework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ru.skypro.homework.dto.auth.Role;
+import ru.skypro.homework.dto.auth.TokenDto;
+import ru.skypro.homework.exception.InvalidTokenException;
+import ru.skypro.homework.model.UsersDao;
+
+import java.time.Duration;
+
+class TokenServiceTest {
+
+    private TokenService tokenService;
+    private UsersDao user;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = tokenService("test-secret", Duration.ofMinutes(15));
+        user = new UsersDao();
+        user.setId(42);
+        user.setEmail("user@test.com");
+        user.setPassword("$2a$10$hash");
+        user.setRole(Role.ADMIN);
+    }
+
+    @Test
+    void parseAccessToken_shouldReturnUserFromIssuedToken() {
+        TokenDto tokens = tokenService.issue(user);
+
+        TokenService.Claims claims = tokenService.parseAccessToken(tokens.getAccessToken());
+
+        assertThat(claims.getUsername()).isEqualTo("user@test.com");
+        assertThat(claims.getRole()).isEqualTo("ADMIN");
+        assertThat(tokens.getTokenType()).isEqualTo("Bearer");
+        assertThat(tokens.getExpiresIn()).isEqualTo(900);
+    }
+
+    @Test
+    void parseAccessToken_shouldReturnUserIdWhenIssuedForStoredUser() {
+        TokenService.Claims claims =
+                tokenService.parseAccessToken(tokenService.issue(user).getAccessToken());
+
+        assertThat(claims.getUserId()).isEqualTo(42);
+    }
+
+    @Test
+    void parseAccessToken_withoutUserId_shouldThrow() {
+        user.setId(null);
+        String token = tokenService.issue(user).getAccessToken();
+
+        assertThatThrownBy(() -> tokenService.parseAccessToken(token))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void parseAccessToken_withTamperedPayload_shouldThrow() {
+        String[] parts = tokenService.issue(user).getAccessToken().split("\\.");
+        String forged = parts[0] + "." + parts[1] + "x." + parts[2];
+
+        assertThatThrownBy(() -> tokenService.parseAccessToken(forged))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void parseAccessToken_signedWithOtherKey_shouldThrow() {
+        TokenService other = tokenService("other-secret", Duration.ofMinutes(15));
+        String token = other.issue(user).getAccessToken();
+
+        assertThatThrownBy(() -> tokenService.parseAccessToken(token))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void parseAccessToken_whenExpired_shouldThrow() {
+        TokenService expiring = tokenService("test-secret", Duration.ofSeconds(-1));
+        String token = expiring.issue(user).getAccessToken();
+
+        assertThatThrownBy(() -> tokenService.parseAccessToken(token))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void parseAccessToken_withRefreshToken_shouldThrow() {
+        String refreshToken = tokenService.issue(user).getRefreshToken();
+
+        assertThatThrownBy(() -> tokenService.parseAccessToken(refreshToken))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void verifyRefreshToken_afterPasswordChange_shouldThrow() {
+        String refreshToken = tokenService.issue(user).getRefreshToken();
+        assertThat(tokenService.refreshTokenSubject(refreshToken)).isEqualTo("user@test.com");
+        tokenService.verifyRefreshToken(refreshToken, user);
+
+        user.setPassword("$2a$10$otherHash");
+
+        assertThatThrownBy(() -> tokenService.verifyRefreshToken(refreshToken, user))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    private static TokenService tokenService(String secret, Duration accessTtl) {
+        return new TokenService(new ObjectMapper(), secret, accessTtl, Duration.ofDays(7));
+    }
+}
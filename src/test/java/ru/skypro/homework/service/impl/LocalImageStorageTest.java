@@ -0,0 +1,148 @@
+package ru.skypro.homework.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.service.ImageStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class LocalImageStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path adsDir;
+    private LocalImageStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        adsDir = tempDir.resolve("ads");
+        storage =
+                new LocalImageStorage(
+                        Map.of(ImageArea.ADS, adsDir, ImageArea.AVATARS, tempDir.resolve("av")));
+    }
+
+    @Test
+    void save_shouldWriteIntoTwoLevelShard() throws IOException {
+        // when
+        save("a.jpg", "content");
+
+        // then
+        Path expected = LocalImageStorage.shardedPath(adsDir, "a.jpg");
+        assertThat(adsDir.relativize(expected).getNameCount()).isEqualTo(3);
+        assertThat(Files.readString(expected)).isEqualTo("content");
+        try (var files = Files.list(expected.getParent())) {
+            // временный файл переименован, а не оставлен рядом
+            assertThat(files).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void stage_shouldPublishUnderNameChosenAfterWriteAndDropUnpublished() throws IOException {
+        // given
+        ImageStorage.StagedImage published = stage("published");
+        ImageStorage.StagedImage dropped = stage("dropped");
+
+        // when
+        try (published) {
+            published.publish("p.jpg");
+        }
+        dropped.close();
+
+        // then
+        assertThat(Files.readString(LocalImageStorage.shardedPath(adsDir, "p.jpg")))
+                .isEqualTo("published");
+        try (Stream<ImageStorage.ListedImage> listed = storage.list(ImageArea.ADS)) {
+            assertThat(listed.map(ImageStorage.ListedImage::getFilename))
+                    .containsExactly("p.jpg");
+        }
+        try (Stream<Path> files = Files.walk(adsDir)) {
+            assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+        }
+    }
+
+    @Test
+    void find_shouldFallBackToFlatLayout() throws IOException {
+        // given
+        Files.writeString(adsDir.resolve("legacy.jpg"), "legacy");
+
+        // when
+        ImageStorage.StoredImage stored = storage.find(ImageArea.ADS, "legacy.jpg").orElseThrow();
+
+        // then
+        assertThat(stored.getContentLength()).isEqualTo(6);
+        assertThat(storage.find(ImageArea.ADS, "missing.jpg")).isEmpty();
+    }
+
+    @Test
+    void migrateFlatFiles_shouldMoveFilesIntoShards() throws IOException {
+        // given
+        Files.writeString(adsDir.resolve("one.jpg"), "1");
+        Files.writeString(adsDir.resolve("two.jpg"), "2");
+
+        // when
+        int moved = storage.migrateFlatFiles(ImageArea.ADS);
+
+        // then
+        assertThat(moved).isEqualTo(2);
+        assertThat(adsDir.resolve("one.jpg")).doesNotExist();
+        assertThat(LocalImageStorage.shardedPath(adsDir, "one.jpg")).hasContent("1");
+        assertThat(storage.find(ImageArea.ADS, "two.jpg")).isPresent();
+    }
+
+    @Test
+    void delete_shouldRemoveShardedAndFlatCopies() throws IOException {
+        // given
+        save("b.jpg", "new");
+        Files.writeString(adsDir.resolve("b.jpg"), "old");
+
+        // when
+        storage.delete(ImageArea.ADS, "b.jpg");
+
+        // then
+        assertThat(storage.find(ImageArea.ADS, "b.jpg")).isEmpty();
+    }
+
+    @Test
+    void list_shouldReturnShardedAndFlatFiles_withoutDirectories() throws IOException {
+        // given
+        save("sharded.jpg", "1");
+        Files.writeString(adsDir.resolve("flat.jpg"), "2");
+
+        // when
+        Map<String, Long> listed;
+        try (Stream<ImageStorage.ListedImage> files = storage.list(ImageArea.ADS)) {
+            listed =
+                    files.collect(
+                            Collectors.toMap(
+                                    ImageStorage.ListedImage::getFilename,
+                                    ImageStorage.ListedImage::getLastModified));
+        }
+
+        // then
+        assertThat(listed).containsOnlyKeys("sharded.jpg", "flat.jpg");
+        assertThat(listed.get("flat.jpg"))
+                .isEqualTo(Files.getLastModifiedTime(adsDir.resolve("flat.jpg")).toMillis());
+    }
+
+    private void save(String filename, String content) throws IOException {
+        byte[] bytes = content.getBytes();
+        storage.save(ImageArea.ADS, filename, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private ImageStorage.StagedImage stage(String content) throws IOException {
+        byte[] bytes = content.getBytes();
+        return storage.stage(ImageArea.ADS, new ByteArrayInputStream(bytes), bytes.length);
+    }
+}
@@ -0,0 +1,228 @@
+package ru.skypro.homework.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.Container;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+
+import ru.skypro.homework.dto.image.ImageArea;
+import ru.skypro.homework.service.ImageStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Проверка {@link S3ImageStorage} против MinIO в Docker-контейнере: подпись запросов, разбор
+ * ответов и сопоставление статусов HTTP с контрактом {@link ImageStorage}. Каждый тест работает в
+ * своём бакете.
+ */
+class S3ImageStorageIntegrationTest {
+
+    private static final String ACCESS_KEY = "minio";
+    private static final String SECRET_KEY = "minio-secret";
+    private static final int PORT = 9000;
+    private static final String REGION = "us-east-1";
+
+    /** Контейнер MinIO, запускаемый один раз для всех тестов класса. */
+    private static final GenericContainer<?> minio;
+
+    private static final AtomicInteger BUCKETS = new AtomicInteger();
+
+    static {
+        // Те же настройки Docker, что и для контейнера PostgreSQL в AbstractIntegrationTest
+        System.setProperty("docker.client.version", "1.44");
+        System.setProperty("testcontainers.ryuk.disabled", "true");
+        minio =
+                new GenericContainer<>("minio/minio:RELEASE.2024-01-16T16-07-38Z")
+                        .withEnv("MINIO_ROOT_USER", ACCESS_KEY)
+                        .withEnv("MINIO_ROOT_PASSWORD", SECRET_KEY)
+                        .withCommand("server", "/data")
+                        .withExposedPorts(PORT)
+                        .waitingFor(Wait.forHttp("/minio/health/live").forPort(PORT));
+        minio.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(minio::stop));
+    }
+
+    private String bucket;
+    private S3ImageStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bucket = "images-" + BUCKETS.incrementAndGet();
+        storage = storage(SECRET_KEY);
+        storage.createBucketIfMissing();
+    }
+
+    @Test
+    void createBucketIfMissing_shouldAcceptExistingBucket() throws IOException {
+        // when
+        storage.createBucketIfMissing();
+
+        // then
+        try (Stream<ImageStorage.ListedImage> listed = storage.list(ImageArea.ADS)) {
+            assertThat(listed).isEmpty();
+        }
+    }
+
+    @Test
+    void save_shouldStoreContentReadableThroughFind() throws IOException {
+        // when
+        save(ImageArea.ADS, "a.jpg", "content");
+
+        // then
+        ImageStorage.StoredImage stored = storage.find(ImageArea.ADS, "a.jpg").orElseThrow();
+        assertThat(stored.getContentLength()).isEqualTo(7);
+        assertThat(stored.getLastModified()).isPositive();
+        assertThat(read(stored)).isEqualTo("content");
+    }
+
+    @Test
+    void save_shouldReplaceExistingObject() throws IOException {
+        // given
+        save(ImageArea.ADS, "a.jpg", "old");
+
+        // when
+        save(ImageArea.ADS, "a.jpg", "new content");
+
+        // then
+        assertThat(read(storage.find(ImageArea.ADS, "a.jpg").orElseThrow()))
+                .isEqualTo("new content");
+    }
+
+    @Test
+    void find_shouldReturnEmptyForMissingObject() throws IOException {
+        // given
+        save(ImageArea.AVATARS, "a.jpg", "avatar");
+
+        // then: объект другой области не находится
+        assertThat(storage.find(ImageArea.ADS, "missing.jpg")).isEmpty();
+        assertThat(storage.find(ImageArea.ADS, "a.jpg")).isEmpty();
+    }
+
+    @Test
+    void delete_shouldRemoveObject_andIgnoreMissingOne() throws IOException {
+        // given
+        save(ImageArea.ADS, "a.jpg", "content");
+        ImageStorage.StoredImage stored = storage.find(ImageArea.ADS, "a.jpg").orElseThrow();
+
+        // when
+        storage.delete(ImageArea.ADS, "a.jpg");
+        storage.delete(ImageArea.ADS, "a.jpg");
+
+        // then
+        assertThat(storage.find(ImageArea.ADS, "a.jpg")).isEmpty();
+        assertThatThrownBy(() -> stored.getResource().getInputStream())
+                .isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void stage_shouldPublishUnderNameChosenAfterWriteAndDropUnpublished() throws Exception {
+        // given
+        ImageStorage.StagedImage published = stage("published");
+        ImageStorage.StagedImage dropped = stage("dropped");
+
+        // when
+        try (published) {
+            published.publish("p.jpg");
+        }
+        dropped.close();
+
+        // then
+        assertThat(read(storage.find(ImageArea.ADS, "p.jpg").orElseThrow()))
+                .isEqualTo("published");
+        assertThat(listNames(ImageArea.ADS)).containsExactly("p.jpg");
+        // временные объекты удалены, а не только скрыты из перечисления
+        String areaDir = "/data/" + bucket + "/" + ImageArea.ADS.getPrefix();
+        Container.ExecResult objects = minio.execInContainer("ls", "-A", areaDir);
+        assertThat(objects.getStdout().split("\\s+")).containsExactly("p.jpg");
+    }
+
+    @Test
+    void list_shouldReturnObjectsOfAreaWithoutTemporaryUploads() throws IOException {
+        // given
+        save(ImageArea.ADS, "one.jpg", "1");
+        save(ImageArea.ADS, "two.png", "2");
+        save(ImageArea.AVATARS, "avatar.jpg", "3");
+
+        // when
+        try (ImageStorage.StagedImage ignored = stage("pending")) {
+            // then
+            assertThat(listNames(ImageArea.ADS)).containsExactlyInAnyOrder("one.jpg", "two.png");
+            assertThat(listNames(ImageArea.AVATARS)).containsExactly("avatar.jpg");
+        }
+    }
+
+    @Test
+    void requests_shouldFailWithIOException_whenSignatureIsRejected() {
+        // given
+        S3ImageStorage wrongKey = storage("wrong-secret");
+        byte[] bytes = "content".getBytes(StandardCharsets.UTF_8);
+
+        // then: 403 – ошибка, а не отсутствующий объект
+        assertThatThrownBy(
+                        () ->
+                                wrongKey.save(
+                                        ImageArea.ADS,
+                                        "a.jpg",
+                                        new ByteArrayInputStream(bytes),
+                                        bytes.length))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("status 403");
+        assertThatThrownBy(() -> wrongKey.find(ImageArea.ADS, "a.jpg"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("status 403");
+        assertThatThrownBy(() -> wrongKey.delete(ImageArea.ADS, "a.jpg"))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(
+                        () -> {
+                            try (Stream<ImageStorage.ListedImage> listed =
+                                    wrongKey.list(ImageArea.ADS)) {
+                                listed.count();
+                            }
+                        })
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    private S3ImageStorage storage(String secretKey) {
+        URI endpoint =
+                URI.create("http://" + minio.getHost() + ":" + minio.getMappedPort(PORT));
+        return new S3ImageStorage(
+                endpoint, bucket, REGION, ACCESS_KEY, secretKey, Duration.ofSeconds(10));
+    }
+
+    private void save(ImageArea area, String filename, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        storage.save(area, filename, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private ImageStorage.StagedImage stage(String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return storage.stage(ImageArea.ADS, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private List<String> listNames(ImageArea area) throws IOException {
+        try (Stream<ImageStorage.ListedImage> listed = storage.list(area)) {
+            return listed.map(ImageStorage.ListedImage::getFilename).collect(Collectors.toList());
+        }
+    }
+
+    private static String read(ImageStorage.StoredImage stored) throws IOException {
+        try (InputStream in = stored.getResource().getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
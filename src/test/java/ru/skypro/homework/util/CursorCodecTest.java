@@ -0,0 +1,66 @@
+package ru.skypro.homework.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import ru.skypro.homework.exception.InvalidCursorException;
+
+class CursorCodecTest {
+
+    @Test
+    void decode_shouldReturnEncodedValues() {
+        String cursor = CursorCodec.encode(42);
+
+        assertThat(CursorCodec.decode(cursor, 1).intAt(0)).isEqualTo(42);
+    }
+
+    @Test
+    void longAt_shouldReturnEncodedValue() {
+        String cursor = CursorCodec.encode(1_700_000_000_123_456L, 3);
+
+        assertThat(CursorCodec.decode(cursor, 2).longAt(0)).isEqualTo(1_700_000_000_123_456L);
+    }
+
+    @Test
+    void floatAt_shouldRestoreExactFloatValue() {
+        float rank = 0.0607927f;
+        String cursor = CursorCodec.encode(rank, 7);
+
+        CursorCodec.Values values = CursorCodec.decode(cursor, 2);
+
+        assertThat(values.floatAt(0)).isEqualTo(rank);
+        assertThat(values.intAt(1)).isEqualTo(7);
+    }
+
+    @Test
+    void floatAt_shouldThrowInvalidCursorException_whenValueIsNotFinite() {
+        String cursor = CursorCodec.encode("NaN", 7);
+
+        assertThatThrownBy(() -> CursorCodec.decode(cursor, 2).floatAt(0))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void decode_shouldThrowInvalidCursorException_whenCursorIsNotBase64() {
+        assertThatThrownBy(() -> CursorCodec.decode("не курсор", 1))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void decode_shouldThrowInvalidCursorException_whenValueCountDiffers() {
+        String cursor = CursorCodec.encode(1, 2);
+
+        assertThatThrownBy(() -> CursorCodec.decode(cursor, 1))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void intAt_shouldThrowInvalidCursorException_whenValueIsNotNumber() {
+        String cursor = CursorCodec.encode("abc");
+
+        assertThatThrownBy(() -> CursorCodec.decode(cursor, 1).intAt(0))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}